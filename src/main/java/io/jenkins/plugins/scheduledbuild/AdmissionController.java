@@ -0,0 +1,265 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.model.Cause;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Label;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 预约构建的准入控制
+ * 触发前检查构建队列：同一任务或同一标签下排队中和正在执行的预约构建达到上限，
+ * 或整个队列长度超过阈值时，本次触发被推迟，稍后重试。
+ * 推迟时间有上限，超过上限的任务不再检查直接入队，避免预约被无限期推迟。
+ *
+ * 计数基于 Queue.withLock 内取得的队列和执行器快照，同一批中放行的任务会累加到快照上。
+ * 任务按完整名称计数。所有限制为 0 时不启用，不会读取队列。
+ */
+class AdmissionController {
+    private static final Logger LOGGER = Logger.getLogger(AdmissionController.class.getName());
+
+    private static final String PREFIX = ScheduledBuildManager.class.getName();
+
+    private final int maxQueuedPerJob;
+    private final int maxQueuedPerLabel;
+    private final Map<String, Integer> labelCaps;
+    private final int queueThreshold;
+    private final long retryMillis;
+    private final long maxDeferMillis;
+
+    // 被推迟的任务ID -> 第一次被推迟的时间
+    private final Map<String, Long> deferredSince = new ConcurrentHashMap<>();
+    private final AtomicLong deferrals = new AtomicLong();
+    private final AtomicLong admittedAfterDefer = new AtomicLong();
+    private final AtomicLong forced = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    AdmissionController(int maxQueuedPerJob, int maxQueuedPerLabel, Map<String, Integer> labelCaps,
+                        int queueThreshold, long retryMillis, long maxDeferMillis) {
+        this.maxQueuedPerJob = maxQueuedPerJob;
+        this.maxQueuedPerLabel = maxQueuedPerLabel;
+        this.labelCaps = labelCaps;
+        this.queueThreshold = queueThreshold;
+        this.retryMillis = retryMillis;
+        this.maxDeferMillis = maxDeferMillis;
+    }
+
+    /**
+     * 从系统属性读取配置
+     */
+    static AdmissionController fromSystemProperties() {
+        return new AdmissionController(
+                Math.max(0, SystemProperties.getInteger(PREFIX + ".maxQueuedPerJob", 0)),
+                Math.max(0, SystemProperties.getInteger(PREFIX + ".maxQueuedPerLabel", 0)),
+                parseLabelCaps(SystemProperties.getString(PREFIX + ".labelCaps")),
+                Math.max(0, SystemProperties.getInteger(PREFIX + ".queueThreshold", 0)),
+                TimeUnit.SECONDS.toMillis(Math.max(1, SystemProperties.getLong(PREFIX + ".admissionRetrySeconds", 30L))),
+                TimeUnit.MINUTES.toMillis(Math.max(0, SystemProperties.getLong(PREFIX + ".admissionMaxDeferMinutes", 30L))));
+    }
+
+    /**
+     * 解析按标签的上限，格式为 "linux=5,windows=2"，无效项忽略
+     */
+    static Map<String, Integer> parseLabelCaps(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> caps = new HashMap<>();
+        for (String part : spec.split(",")) {
+            int eq = part.lastIndexOf('=');
+            if (eq <= 0) {
+                LOGGER.warning("忽略无效的标签上限配置: " + part);
+                continue;
+            }
+            try {
+                caps.put(part.substring(0, eq).trim(), Math.max(0, Integer.parseInt(part.substring(eq + 1).trim())));
+            } catch (NumberFormatException e) {
+                LOGGER.warning("忽略无效的标签上限配置: " + part);
+            }
+        }
+        return caps;
+    }
+
+    boolean isEnabled() {
+        return maxQueuedPerJob > 0 || maxQueuedPerLabel > 0 || !labelCaps.isEmpty() || queueThreshold > 0;
+    }
+
+    long getRetryMillis() {
+        return retryMillis;
+    }
+
+    /**
+     * 统计队列中和正在执行的预约构建，需要在 Queue.withLock 内调用
+     * 队列长度阈值只看队列；任务和标签的上限同时计入已经开始执行的构建，
+     * 否则构建一开始执行就不再占用名额，上限限制不住同时运行的数量。
+     */
+    Snapshot snapshot(Jenkins jenkins) {
+        Snapshot snapshot = new Snapshot();
+        for (hudson.model.Queue.Item item : jenkins.getQueue().getItems()) {
+            snapshot.total++;
+            if (!isScheduledBuild(item)) {
+                continue;
+            }
+            Label label = item.getAssignedLabel();
+            snapshot.count(item.task instanceof Item ? ((Item) item.task).getFullName() : null,
+                    label != null ? label.getName() : null);
+        }
+        for (Computer computer : jenkins.getComputers()) {
+            for (Executor executor : computer.getExecutors()) {
+                countExecuting(snapshot, executor);
+            }
+            // 流水线构建本身运行在 one-off 执行器上
+            for (Executor executor : computer.getOneOffExecutors()) {
+                countExecuting(snapshot, executor);
+            }
+        }
+        return snapshot;
+    }
+
+    private static void countExecuting(Snapshot snapshot, Executor executor) {
+        hudson.model.Queue.Executable executable = executor.getCurrentExecutable();
+        if (!(executable instanceof Run)) {
+            return;
+        }
+        Run<?, ?> run = (Run<?, ?>) executable;
+        if (run.getCause(ScheduledBuildManager.ScheduledBuildCause.class) == null) {
+            return;
+        }
+        Job<?, ?> job = run.getParent();
+        Label label = job instanceof hudson.model.Queue.Task ? ((hudson.model.Queue.Task) job).getAssignedLabel() : null;
+        snapshot.count(job.getFullName(), label != null ? label.getName() : null);
+    }
+
+    private static boolean isScheduledBuild(hudson.model.Queue.Item item) {
+        for (Cause cause : item.getCauses()) {
+            if (cause instanceof ScheduledBuildManager.ScheduledBuildCause) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断任务能否现在入队，放行时计入快照
+     * @param jobFullName 解析到的任务的完整名称，与快照的计数方式一致
+     * @return false 表示本次推迟
+     */
+    boolean tryAdmit(Snapshot snapshot, ScheduledBuildTask task, String jobFullName, Label label, long now) {
+        String labelName = label != null ? label.getName() : null;
+        String reason = rejectReason(snapshot, jobFullName, labelName);
+        Long since = deferredSince.get(task.getId());
+        if (reason != null) {
+            if (since == null) {
+                deferredSince.put(task.getId(), now);
+                deferrals.incrementAndGet();
+                LOGGER.info(String.format("%s，推迟触发预约任务: %s", reason, task));
+                return false;
+            }
+            if (now - since < maxDeferMillis) {
+                return false;
+            }
+            forced.incrementAndGet();
+            LOGGER.warning(String.format("%s，但预约任务已推迟 %d 秒，不再等待: %s",
+                    reason, TimeUnit.MILLISECONDS.toSeconds(now - since), task));
+        }
+        if (since != null) {
+            deferredSince.remove(task.getId());
+            long wait = now - since;
+            admittedAfterDefer.incrementAndGet();
+            totalWaitMillis.addAndGet(wait);
+            maxWaitMillis.accumulateAndGet(wait, Math::max);
+        }
+        snapshot.total++;
+        snapshot.count(jobFullName, labelName);
+        return true;
+    }
+
+    private String rejectReason(Snapshot snapshot, String jobName, String labelName) {
+        if (queueThreshold > 0 && snapshot.total >= queueThreshold) {
+            return String.format("构建队列长度 %d 已达阈值 %d", snapshot.total, queueThreshold);
+        }
+        int perJob = snapshot.perJob.getOrDefault(jobName, 0);
+        if (maxQueuedPerJob > 0 && perJob >= maxQueuedPerJob) {
+            return String.format("任务 %s 排队中和执行中的预约构建 %d 个，已达上限 %d", jobName, perJob, maxQueuedPerJob);
+        }
+        if (labelName != null) {
+            int cap = labelCaps.getOrDefault(labelName, maxQueuedPerLabel);
+            int perLabel = snapshot.perLabel.getOrDefault(labelName, 0);
+            if (cap > 0 && perLabel >= cap) {
+                return String.format("标签 %s 排队中和执行中的预约构建 %d 个，已达上限 %d", labelName, perLabel, cap);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 任务不再等待准入（已取消、已触发失败等）时清除推迟记录
+     */
+    void forget(String taskId) {
+        deferredSince.remove(taskId);
+    }
+
+    /**
+     * 累计被推迟的任务数，同一任务多次重试只计一次
+     */
+    long getDeferredCount() {
+        return deferrals.get();
+    }
+
+    /**
+     * 当前正在等待准入的任务数
+     */
+    int getDeferredBacklog() {
+        return deferredSince.size();
+    }
+
+    /**
+     * 因超过最长推迟时间而直接入队的次数
+     */
+    long getForcedCount() {
+        return forced.get();
+    }
+
+    /**
+     * 被推迟的任务从第一次推迟到入队的平均等待时间
+     */
+    long getAverageWaitMillis() {
+        long n = admittedAfterDefer.get();
+        return n == 0 ? 0 : totalWaitMillis.get() / n;
+    }
+
+    long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    /**
+     * 一次提交过程中的计数：total 为队列长度，perJob/perLabel 为排队中和执行中的预约构建数
+     */
+    static final class Snapshot {
+        private int total;
+        private final Map<String, Integer> perJob = new HashMap<>();
+        private final Map<String, Integer> perLabel = new HashMap<>();
+
+        private void count(String jobFullName, String labelName) {
+            if (jobFullName != null) {
+                perJob.merge(jobFullName, 1, Integer::sum);
+            }
+            if (labelName != null) {
+                perLabel.merge(labelName, 1, Integer::sum);
+            }
+        }
+    }
+}
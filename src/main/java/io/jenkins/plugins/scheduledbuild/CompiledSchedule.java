@@ -0,0 +1,258 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编译后的每天/每周/每月调度
+ * 规则的 "HH:mm" 字符串和日期集合只在编译时解析一次，之后以一天中的分钟数和位图表示；
+ * 计算下一次执行时间时以 epoch 天数和秒数上的整数运算完成，时区偏移从按时区缓存的跳变表中二分查找，
+ * 不创建任何对象（超出跳变表范围的时间回退到 java.time 计算）。
+ *
+ * 时间按规则的时区解释：夏令时跳过的本地时间顺延到跳变之后，重复的本地时间取较早的一次。
+ */
+final class CompiledSchedule implements ScheduleEvaluator {
+
+    private static final long ALL_WEEK_DAYS = 0xFEL;   // 位 1-7
+    private static final int MAX_MONTHS_AHEAD = 12;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    // 按时区共享的偏移跳变表，大量规则通常只用到少数几个时区
+    private static final Map<ZoneId, OffsetTable> OFFSET_TABLES = new ConcurrentHashMap<>();
+
+    private final int minuteOfDay;
+    // 位 1-7 对应周一到周日
+    private final long weekDayMask;
+    // 位 1-31 对应每月的日期，0 表示不按日期限制
+    private final long monthDayMask;
+    private final OffsetTable offsets;
+
+    private CompiledSchedule(int minuteOfDay, long weekDayMask, long monthDayMask, ZoneId zone) {
+        this.minuteOfDay = minuteOfDay;
+        this.weekDayMask = weekDayMask;
+        this.monthDayMask = monthDayMask;
+        this.offsets = OFFSET_TABLES.computeIfAbsent(zone, OffsetTable::new);
+    }
+
+    static CompiledSchedule daily(String time, ZoneId zone) {
+        return new CompiledSchedule(parseMinuteOfDay(time), ALL_WEEK_DAYS, 0, zone);
+    }
+
+    static CompiledSchedule weekly(Set<Integer> weekDays, String time, ZoneId zone) {
+        long mask = toMask(weekDays, 1, 7);
+        if (mask == 0) {
+            throw new IllegalArgumentException("未选择星期");
+        }
+        return new CompiledSchedule(parseMinuteOfDay(time), mask, 0, zone);
+    }
+
+    static CompiledSchedule monthly(Set<Integer> monthDays, String time, ZoneId zone) {
+        long mask = toMask(monthDays, 1, 31);
+        if (mask == 0) {
+            throw new IllegalArgumentException("未选择日期");
+        }
+        return new CompiledSchedule(parseMinuteOfDay(time), ALL_WEEK_DAYS, mask, zone);
+    }
+
+    @Override
+    public long next(long fromTime) {
+        long fromSecond = Math.floorDiv(fromTime, 1000);
+        long epochDay = Math.floorDiv(fromSecond + offsets.offsetAt(fromSecond), SECONDS_PER_DAY);
+        if (monthDayMask != 0) {
+            return nextMonthly(epochDay, fromTime);
+        }
+        // 今天的执行时间可能已过，最多再看 7 天
+        for (int i = 0; i <= 7; i++, epochDay++) {
+            if ((weekDayMask & (1L << dayOfWeek(epochDay))) != 0) {
+                long time = at(epochDay);
+                if (time > fromTime) {
+                    return time;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private long nextMonthly(long epochDay, long fromTime) {
+        // 由 epochDay 换算年月日（Howard Hinnant 的 civil_from_days 算法，以 3 月 1 日为一年的开始）
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        long monthStart = epochDay - (day - 1);
+        for (int i = 0; i <= MAX_MONTHS_AHEAD; i++) {
+            int length = lengthOfMonth(year, month);
+            // 本月从 day 到月末之间选中的日期
+            long candidates = monthDayMask & -(1L << day) & ((1L << (length + 1)) - 1);
+            while (candidates != 0) {
+                int d = Long.numberOfTrailingZeros(candidates);
+                long time = at(monthStart + d - 1);
+                if (time > fromTime) {
+                    return time;
+                }
+                candidates &= candidates - 1;
+            }
+            monthStart += length;
+            day = 1;
+            if (++month > 12) {
+                month = 1;
+                year++;
+            }
+        }
+        return NONE;
+    }
+
+    private long at(long epochDay) {
+        return offsets.toEpochSecond(epochDay * SECONDS_PER_DAY + minuteOfDay * 60L) * 1000;
+    }
+
+    /**
+     * 周一为 1，周日为 7；1970-01-01 是周四
+     */
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    private static int lengthOfMonth(long year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * 解析 "HH:mm"
+     */
+    static int parseMinuteOfDay(String time) {
+        if (time == null) {
+            throw new IllegalArgumentException("缺少执行时间");
+        }
+        int colon = time.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("执行时间格式应为 HH:mm: " + time);
+        }
+        int hour = Integer.parseInt(time.substring(0, colon).trim());
+        int minute = Integer.parseInt(time.substring(colon + 1).trim());
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("执行时间超出范围: " + time);
+        }
+        return hour * 60 + minute;
+    }
+
+    private static long toMask(Set<Integer> values, int min, int max) {
+        long mask = 0;
+        if (values != null) {
+            for (int value : values) {
+                if (value >= min && value <= max) {
+                    mask |= 1L << value;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 一个时区在 1900-2300 年之间的偏移跳变，以 epoch 秒和偏移秒数保存
+     */
+    private static final class OffsetTable {
+        private static final long FIRST = LocalDateTime.of(1900, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        private static final long LAST = LocalDateTime.of(2300, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+        private final ZoneId zone;
+        private final int initialOffset;
+        // 第 i 次跳变的时刻，以及跳变前后的偏移
+        private final long[] instants;
+        private final int[] before;
+        private final int[] after;
+        // 第 i 次跳变影响的本地时间段 [windowStart, windowEnd)：跳过（gap）或重复（overlap）的本地时间
+        private final long[] windowStart;
+        private final long[] windowEnd;
+
+        OffsetTable(ZoneId zone) {
+            this.zone = zone;
+            ZoneRules rules = zone.getRules();
+            Instant first = Instant.ofEpochSecond(FIRST);
+            this.initialOffset = rules.getOffset(first).getTotalSeconds();
+            List<ZoneOffsetTransition> transitions = new ArrayList<>();
+            ZoneOffsetTransition transition = rules.nextTransition(first);
+            while (transition != null && transition.toEpochSecond() < LAST) {
+                transitions.add(transition);
+                transition = rules.nextTransition(transition.getInstant());
+            }
+            int n = transitions.size();
+            instants = new long[n];
+            before = new int[n];
+            after = new int[n];
+            windowStart = new long[n];
+            windowEnd = new long[n];
+            for (int i = 0; i < n; i++) {
+                ZoneOffsetTransition t = transitions.get(i);
+                instants[i] = t.toEpochSecond();
+                before[i] = t.getOffsetBefore().getTotalSeconds();
+                after[i] = t.getOffsetAfter().getTotalSeconds();
+                windowStart[i] = instants[i] + Math.min(before[i], after[i]);
+                windowEnd[i] = instants[i] + Math.max(before[i], after[i]);
+            }
+        }
+
+        /**
+         * 某一时刻的偏移秒数
+         */
+        int offsetAt(long epochSecond) {
+            if (epochSecond < FIRST || epochSecond >= LAST) {
+                return zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+            }
+            int i = lastAtOrBefore(instants, epochSecond);
+            return i < 0 ? initialOffset : after[i];
+        }
+
+        /**
+         * 本地时间（以 UTC 计的 epoch 秒）对应的时刻，规则与 ZonedDateTime.ofLocal(local, zone, null) 相同：
+         * 跳过的本地时间顺延跳变的长度，重复的本地时间取较早的一次，两种情况都等于按跳变前的偏移换算
+         */
+        long toEpochSecond(long localSecond) {
+            if (localSecond < FIRST || localSecond >= LAST) {
+                LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+                return ZonedDateTime.ofLocal(local, zone, null).toEpochSecond();
+            }
+            int i = lastAtOrBefore(windowStart, localSecond);
+            if (i < 0) {
+                return localSecond - initialOffset;
+            }
+            return localSecond - (localSecond < windowEnd[i] ? before[i] : after[i]);
+        }
+
+        /**
+         * 升序数组中不大于 key 的最后一个下标，没有时返回 -1
+         */
+        private static int lastAtOrBefore(long[] sorted, long key) {
+            int lo = 0;
+            int hi = sorted.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return hi;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Cron 表达式调度
+ * 支持标准 5 字段格式（分 时 日 月 周）和 Jenkins 风格的 H 语法：
+ * <pre>
+ * *  a  a-b  * /n  a-b/n  a,b,c  H  H/n  H(a-b)  H(a-b)/n
+ * </pre>
+ * 月份和星期可以使用英文缩写（JAN-DEC、SUN-SAT），星期 0 和 7 都表示周日；
+ * 另外支持 @yearly、@annually、@monthly、@weekly、@daily、@midnight、@hourly 别名（按 H 展开）。
+ * 日字段中不带范围的 H 只取 1-28，避免落在小月没有的日期上；选定的月份中都没有的日期（如 2 月 30 日）视为无效表达式。
+ *
+ * 每个字段编译为一个位图。查找下一次执行时间时按 月 → 日 → 时 → 分 逐级跳到下一个匹配值，
+ * 不会逐分钟或逐日扫描。与 Vixie cron 一致，日和星期同时被限制时两者满足其一即可。
+ * 时间按规则时区解释：夏令时跳过的本地时间顺延到跳变之后，重复的本地时间只执行较早的一次。
+ */
+final class CronSchedule implements ScheduleEvaluator {
+
+    // 找不到匹配时最多向后查找的年数（2 月 29 日且限定星期的表达式最长需要 28 年）
+    private static final int MAX_YEARS_AHEAD = 30;
+    // 日字段中不带范围的 H 只在 1-28 内取值，保证每个月都存在（与 Jenkins 一致）
+    private static final int MAX_HASHED_DAY_OF_MONTH = 28;
+
+    private static final String[] MONTH_NAMES = {
+            "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+    private final long minutes;      // 位 0-59
+    private final long hours;        // 位 0-23
+    private final long daysOfMonth;  // 位 1-31
+    private final long months;       // 位 1-12
+    private final long daysOfWeek;   // 位 0-6，0 为周日
+    private final boolean domRestricted;
+    private final boolean dowRestricted;
+    // 下标为当月 1 日是星期几（0 为周日），值为当月星期字段匹配的日期位图（位 1-31）
+    private final long[] weekdayDays = new long[7];
+    private final ZoneId zone;
+
+    private CronSchedule(String expression, long minutes, long hours, long daysOfMonth, long months,
+                         long daysOfWeek, boolean domRestricted, boolean dowRestricted, ZoneId zone) {
+        this.expression = expression;
+        this.minutes = minutes;
+        this.hours = hours;
+        this.daysOfMonth = daysOfMonth;
+        this.months = months;
+        this.daysOfWeek = daysOfWeek;
+        this.domRestricted = domRestricted;
+        this.dowRestricted = dowRestricted;
+        this.zone = zone;
+        for (int first = 0; first < 7; first++) {
+            for (int day = 1; day <= 31; day++) {
+                if ((daysOfWeek & (1L << ((first + day - 1) % 7))) != 0) {
+                    weekdayDays[first] |= 1L << day;
+                }
+            }
+        }
+    }
+
+    /**
+     * 编译表达式
+     * @param seed H 的散列种子，同一种子总是得到相同的取值
+     * @throws IllegalArgumentException 表达式无效
+     */
+    static CronSchedule parse(String expression, String seed, ZoneId zone) {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new IllegalArgumentException("Cron表达式为空");
+        }
+        String spec = expandAlias(expression.trim());
+        String[] fields = spec.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron表达式应包含 5 个字段（分 时 日 月 周）: " + expression);
+        }
+        int hash = seed != null ? seed.hashCode() : 0;
+        long minutes = parseField(fields[0], 0, 59, null, hash, 0);
+        long hours = parseField(fields[1], 0, 23, null, hash, 1);
+        long daysOfMonth = parseField(fields[2], 1, 31, null, hash, 2);
+        long months = parseField(fields[3], 1, 12, MONTH_NAMES, hash, 3);
+        long daysOfWeek = parseField(fields[4], 0, 7, DAY_NAMES, hash, 4);
+        // 7 与 0 都表示周日
+        if ((daysOfWeek & (1L << 7)) != 0) {
+            daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);
+        }
+        // 与 Vixie cron 一致：以 * 开头的字段（包括 */n）视为不限制
+        boolean domRestricted = !fields[2].startsWith("*");
+        boolean dowRestricted = !fields[4].startsWith("*");
+        // 日期必须满足时（星期不能代替日期），选定的月份中至少要有一个月存在所选日期
+        if (!(domRestricted && dowRestricted) && !anyMonthHasDay(months, daysOfMonth)) {
+            throw new IllegalArgumentException("Cron表达式的日期在所选月份中都不存在: " + expression);
+        }
+        return new CronSchedule(expression, minutes, hours, daysOfMonth, months, daysOfWeek,
+                domRestricted, dowRestricted, zone);
+    }
+
+    private static boolean anyMonthHasDay(long months, long daysOfMonth) {
+        int firstDay = Long.numberOfTrailingZeros(daysOfMonth);
+        for (int month = 1; month <= 12; month++) {
+            if ((months & (1L << month)) != 0 && firstDay <= Month.of(month).maxLength()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String expandAlias(String spec) {
+        switch (spec.toLowerCase(Locale.ROOT)) {
+            case "@yearly":
+            case "@annually":
+                return "H H H H *";
+            case "@monthly":
+                return "H H H * *";
+            case "@weekly":
+                return "H H * * H";
+            case "@daily":
+                return "H H * * *";
+            case "@midnight":
+                return "H H(0-2) * * *";
+            case "@hourly":
+                return "H * * * *";
+            default:
+                if (spec.startsWith("@")) {
+                    throw new IllegalArgumentException("不支持的Cron别名: " + spec);
+                }
+                return spec;
+        }
+    }
+
+    /**
+     * 解析单个字段为位图
+     */
+    private static long parseField(String field, int min, int max, String[] names, int hash, int fieldIndex) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Cron字段中存在空的列表项: " + field);
+            }
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), null, 0);
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Cron步长必须大于 0: " + part);
+                }
+                range = part.substring(0, slash);
+            }
+
+            int lo;
+            int hi;
+            if (range.equals("*")) {
+                lo = min;
+                hi = max == 7 ? 6 : max;
+            } else if (range.startsWith("H")) {
+                // H 或 H(a-b)：在范围内按种子取一个固定值，带步长时作为起点
+                lo = min;
+                hi = max == 7 ? 6 : max == 31 ? MAX_HASHED_DAY_OF_MONTH : max;
+                if (range.length() > 1) {
+                    if (!range.startsWith("H(") || !range.endsWith(")")) {
+                        throw new IllegalArgumentException("无效的H表达式: " + part);
+                    }
+                    String[] bounds = range.substring(2, range.length() - 1).split("-");
+                    if (bounds.length != 2) {
+                        throw new IllegalArgumentException("无效的H表达式: " + part);
+                    }
+                    lo = parseNumber(bounds[0], names, min);
+                    hi = parseNumber(bounds[1], names, min);
+                }
+                checkRange(part, lo, hi, min, max);
+                int span = slash >= 0 ? Math.min(step, hi - lo + 1) : hi - lo + 1;
+                int start = lo + Math.floorMod(mix(hash, fieldIndex), span);
+                if (slash < 0) {
+                    bits |= 1L << start;
+                    continue;
+                }
+                lo = start;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    lo = parseNumber(range.substring(0, dash), names, min);
+                    hi = parseNumber(range.substring(dash + 1), names, min);
+                } else {
+                    lo = parseNumber(range, names, min);
+                    // "a/n" 表示从 a 到最大值每隔 n
+                    hi = slash >= 0 ? (max == 7 ? 6 : max) : lo;
+                }
+            }
+            checkRange(part, lo, hi, min, max);
+            for (int v = lo; v <= hi; v += step) {
+                bits |= 1L << v;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String text, String[] names, int offset) {
+        String value = text.trim();
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + offset;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的Cron取值: " + text);
+        }
+    }
+
+    private static void checkRange(String part, int lo, int hi, int min, int max) {
+        if (lo < min || hi > max || lo > hi) {
+            throw new IllegalArgumentException(String.format("Cron取值超出范围 %d-%d: %s", min, max, part));
+        }
+    }
+
+    /**
+     * H 的散列：同一种子在不同字段上得到互不相关的取值
+     */
+    static int mix(int hash, int fieldIndex) {
+        int h = hash * 31 + fieldIndex * 0x9E3779B9;
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    @Override
+    public long next(long fromTime) {
+        LocalDateTime start = Instant.ofEpochMilli(fromTime).atZone(zone).toLocalDateTime()
+                .truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime t = start;
+        int lastYear = start.getYear() + MAX_YEARS_AHEAD;
+        while (t.getYear() <= lastYear) {
+            // 月
+            int month = nextBit(months, t.getMonthValue());
+            if (month < 0) {
+                t = LocalDateTime.of(t.getYear() + 1, 1, 1, 0, 0);
+                continue;
+            }
+            if (month != t.getMonthValue()) {
+                t = LocalDateTime.of(t.getYear(), month, 1, 0, 0);
+            }
+            // 日：本月剩余日期中第一个匹配的日期，没有时跳到下个月
+            int day = nextBit(matchingDays(t.getYear(), t.getMonthValue()), t.getDayOfMonth());
+            if (day < 0) {
+                t = LocalDate.of(t.getYear(), t.getMonthValue(), 1).plusMonths(1).atStartOfDay();
+                continue;
+            }
+            if (day != t.getDayOfMonth()) {
+                t = LocalDateTime.of(t.getYear(), t.getMonthValue(), day, 0, 0);
+            }
+            // 时
+            int hour = nextBit(hours, t.getHour());
+            if (hour < 0) {
+                t = t.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            if (hour != t.getHour()) {
+                t = t.withHour(hour).withMinute(0);
+            }
+            // 分
+            int minute = nextBit(minutes, t.getMinute());
+            if (minute < 0) {
+                t = t.withMinute(0).plusHours(1);
+                continue;
+            }
+            t = t.withMinute(minute);
+
+            long time = ZonedDateTime.ofLocal(t, zone, null).toInstant().toEpochMilli();
+            if (time > fromTime) {
+                return time;
+            }
+            // 夏令时回拨：本地时间重复的这一段已执行过，继续向后查找
+            t = t.plusMinutes(1);
+        }
+        return NONE;
+    }
+
+    /**
+     * 指定月份中匹配日和星期字段的日期位图（位 1-31）
+     */
+    private long matchingDays(int year, int month) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        long days = weekdayDays[first.getDayOfWeek().getValue() % 7];
+        days = domRestricted && dowRestricted ? daysOfMonth | days : daysOfMonth & days;
+        // 只保留本月存在的日期
+        return days & ((1L << (first.lengthOfMonth() + 1)) - 2);
+    }
+
+    /**
+     * 本地时间是否匹配表达式的各个字段，不考虑时区跳变
+     */
+    boolean matches(LocalDateTime t) {
+        return (minutes & (1L << t.getMinute())) != 0
+                && (hours & (1L << t.getHour())) != 0
+                && (months & (1L << t.getMonthValue())) != 0
+                && (matchingDays(t.getYear(), t.getMonthValue()) & (1L << t.getDayOfMonth())) != 0;
+    }
+
+    /**
+     * 位图中不小于 from 的最小位，没有时返回 -1
+     */
+    private static int nextBit(long bits, int from) {
+        long candidates = bits & -(1L << from);
+        return candidates == 0 ? -1 : Long.numberOfTrailingZeros(candidates);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,85 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 基于 ScheduledExecutorService 的任务分发器
+ * 每个预约任务对应线程池延迟队列中的一个条目，适合任务数量较少的场景
+ */
+class ExecutorTaskDispatcher implements TaskDispatcher {
+    private static final Logger LOGGER = Logger.getLogger(ExecutorTaskDispatcher.class.getName());
+
+    private final Handler handler;
+    private final ScheduledThreadPoolExecutor scheduler;
+    // 任务ID -> 尚未触发的定时，取消时用于从延迟队列中移除
+    private final Map<String, ScheduledFuture<?>> futures = new ConcurrentHashMap<>();
+
+    ExecutorTaskDispatcher(Handler handler) {
+        this.handler = handler;
+        this.scheduler = new ScheduledThreadPoolExecutor(5);
+        // 取消后立即从延迟队列中移除，避免已取消的条目持有任务对象直到原定时间
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public void schedule(ScheduledBuildTask task) {
+        long delay = Math.max(0, task.getFireTime() - System.currentTimeMillis());
+        Fire fire = new Fire(task);
+        synchronized (fire) {
+            fire.future = scheduler.schedule(fire, delay, TimeUnit.MILLISECONDS);
+            ScheduledFuture<?> old = futures.put(task.getId(), fire.future);
+            if (old != null) {
+                old.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(String taskId) {
+        ScheduledFuture<?> future = futures.remove(taskId);
+        return future != null && future.cancel(false);
+    }
+
+    @Override
+    public int getActiveTimerCount() {
+        return futures.size();
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+        futures.clear();
+    }
+
+    /**
+     * 单个任务的定时回调，触发时移除自己在 futures 中的登记
+     */
+    private final class Fire implements Runnable {
+        private final ScheduledBuildTask task;
+        private ScheduledFuture<?> future;
+
+        Fire(ScheduledBuildTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            // 等待 schedule() 完成登记，保证 future 已赋值
+            synchronized (this) {
+                futures.remove(task.getId(), future);
+            }
+            try {
+                handler.dispatch(Collections.singletonList(task));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "分发预约任务失败: " + task, e);
+            }
+        }
+    }
+}
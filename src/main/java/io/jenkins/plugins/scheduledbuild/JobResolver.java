@@ -0,0 +1,178 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.model.Item;
+import hudson.model.Job;
+import jenkins.model.Jenkins;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 任务名称 → Job 的解析缓存
+ * 命中缓存时不再访问 Jenkins 的任务树；未命中时依次尝试按全名、按顶层名称、按 URL 解码后的全名查找，
+ * 都失败才遍历全部任务，同一个未知名称只会遍历一次（负缓存）。
+ * 缓存由 {@link ScheduledBuildItemListener} 在任务创建、重命名、移动和删除时维护。
+ */
+class JobResolver {
+    private static final Logger LOGGER = Logger.getLogger(JobResolver.class.getName());
+
+    private final Map<String, Job<?, ?>> cache = new ConcurrentHashMap<>();
+    // 已经完整遍历过仍找不到的名称
+    private final Set<String> unknown = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong scans = new AtomicLong();
+
+    /**
+     * 解析任务，调用方需处于能看到所有任务的权限上下文（通常是 ACL.SYSTEM）
+     * @return 找不到时返回 null
+     */
+    Job<?, ?> resolve(Jenkins jenkins, String jobName) {
+        if (jobName == null || jobName.isEmpty()) {
+            LOGGER.warning("任务名称为空");
+            return null;
+        }
+
+        Job<?, ?> cached = cache.get(jobName);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        if (unknown.contains(jobName)) {
+            LOGGER.fine(String.format("任务 %s 已确认不存在，跳过查找", jobName));
+            return null;
+        }
+
+        Job<?, ?> job = lookup(jenkins, jobName);
+        if (job == null) {
+            job = scan(jenkins, jobName);
+        }
+        if (job != null) {
+            cache.put(jobName, job);
+        } else {
+            unknown.add(jobName);
+        }
+        return job;
+    }
+
+    /**
+     * 不遍历任务树的查找方式
+     */
+    private static Job<?, ?> lookup(Jenkins jenkins, String jobName) {
+        // 方式1: 使用 getItemByFullName (标准方式，支持文件夹路径)
+        try {
+            Job<?, ?> job = jenkins.getItemByFullName(jobName, Job.class);
+            if (job != null) {
+                LOGGER.fine(String.format("getItemByFullName 找到任务 %s", jobName));
+                return job;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "getItemByFullName 查找 " + jobName + " 出错", e);
+        }
+
+        // 方式2: 使用 getItem (不支持路径，仅根目录)
+        try {
+            Item item = jenkins.getItem(jobName);
+            if (item instanceof Job) {
+                LOGGER.fine(String.format("getItem 找到任务 %s", jobName));
+                return (Job<?, ?>) item;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "getItem 查找 " + jobName + " 出错", e);
+        }
+
+        // 方式3: 尝试处理转义的任务名称（URL编码）
+        try {
+            String decodedName = URLDecoder.decode(jobName, StandardCharsets.UTF_8.name());
+            if (!decodedName.equals(jobName)) {
+                Job<?, ?> job = jenkins.getItemByFullName(decodedName, Job.class);
+                if (job != null) {
+                    LOGGER.fine(String.format("使用解码名称找到任务 %s -> %s", jobName, decodedName));
+                    return job;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "URL解码查找 " + jobName + " 出错", e);
+        }
+        return null;
+    }
+
+    /**
+     * 方式4: 遍历所有任务查找精确匹配（最后的兜底方案）
+     */
+    private Job<?, ?> scan(Jenkins jenkins, String jobName) {
+        scans.incrementAndGet();
+        long start = System.currentTimeMillis();
+        int jobCount = 0;
+        try {
+            for (Item item : jenkins.getAllItems()) {
+                if (item instanceof Job) {
+                    jobCount++;
+                    Job<?, ?> job = (Job<?, ?>) item;
+                    // 尝试匹配 fullName 或 name
+                    if (job.getFullName().equals(jobName) || job.getName().equals(jobName)) {
+                        LOGGER.fine(String.format("遍历找到任务 %s (fullName: %s)", jobName, job.getFullName()));
+                        return job;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "遍历查找任务 " + jobName + " 出错", e);
+        }
+
+        LOGGER.warning(String.format("无法找到任务: %s（遍历了 %d 个任务，耗时 %d 毫秒；在任务变更前不会再次查找）",
+                jobName, jobCount, System.currentTimeMillis() - start));
+        if (jobCount == 0) {
+            LOGGER.warning("未找到任何任务！可能是权限问题或在错误的上下文中执行");
+        }
+        return null;
+    }
+
+    /**
+     * 有任务新建、复制或加载完成：之前找不到的名称可能已经可以解析
+     */
+    void itemsAdded() {
+        unknown.clear();
+    }
+
+    /**
+     * 任务或文件夹的全名发生变化（重命名、移动），或被删除
+     * 移除该全名及其下所有任务的缓存，并清空负缓存
+     */
+    void itemChanged(Item item, String oldFullName) {
+        String prefix = oldFullName + "/";
+        cache.entrySet().removeIf(e -> e.getValue() == item
+                || e.getKey().equals(oldFullName)
+                || e.getKey().startsWith(prefix)
+                || e.getValue().getFullName().startsWith(prefix));
+        unknown.clear();
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    long getScanCount() {
+        return scans.get();
+    }
+
+    /**
+     * 任务全部重新加载后（如从磁盘重新加载配置），原有 Job 实例都已失效
+     */
+    void clear() {
+        cache.clear();
+        unknown.clear();
+    }
+}
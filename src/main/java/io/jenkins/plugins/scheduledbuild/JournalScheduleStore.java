@@ -0,0 +1,321 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 追加日志（write-ahead journal）存储
+ * 每次变更只追加一条记录，由单个写线程批量写入并统一 fsync（group commit）。
+ * 日志记录数达到阈值或超过压缩间隔后，写一次完整的二进制快照并清空日志。
+ * 启动时先加载快照，再按顺序重放日志；记录都是幂等的整体覆盖/删除，重复重放是安全的。
+ *
+ * 记录格式：[int 长度][int CRC32][byte 类型][载荷]，任务和规则的载荷为 XStream XML。
+ * 调用方在分段锁内只复制任务或规则的当前状态，XML 序列化由写线程完成，不占用锁。
+ */
+class JournalScheduleStore implements ScheduleStore {
+    private static final Logger LOGGER = Logger.getLogger(JournalScheduleStore.class.getName());
+
+    private static final byte PUT_TASK = 1;
+    private static final byte REMOVE_TASK = 2;
+    private static final byte PUT_RULE = 3;
+    private static final byte REMOVE_RULE = 4;
+
+    private static final int COMPACT_THRESHOLD = SystemProperties.getInteger(
+            ScheduledBuildManager.class.getName() + ".journalCompactThreshold", 10000);
+    private static final long COMPACT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".journalCompactMinutes", 10L));
+
+    private final ScheduledBuildManager manager;
+    private final File journalFile;
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    // 写线程在 recover() 中创建，重新加载时替换为新的线程
+    private volatile Thread writer;
+
+    private final Object progress = new Object();
+    // 已入队 / 已落盘的记录数，受 progress 保护
+    private long enqueued;
+    private long durable;
+
+    private FileChannel channel;
+    private volatile boolean running = true;
+    private int appendedSinceCompaction;
+    private long lastCompaction = System.currentTimeMillis();
+
+    JournalScheduleStore(ScheduledBuildManager manager) {
+        this.manager = manager;
+        this.journalFile = new File(Jenkins.get().getRootDir(), ScheduledBuildManager.class.getName() + ".journal");
+    }
+
+    @Override
+    public void recover(Map<String, ScheduledBuildTask> tasks, Map<String, RecurringScheduleRule> rules) throws IOException {
+        if (writer != null) {
+            // 重新加载：先把上一次的写线程积压的记录落盘并关闭旧的日志通道，再从文件重放
+            close();
+        }
+        long validLength = 0;
+        int replayed = 0;
+        if (journalFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+                while (true) {
+                    byte[] payload;
+                    try {
+                        int length = in.readInt();
+                        int crc = in.readInt();
+                        if (length <= 0 || length > journalFile.length()) {
+                            break;
+                        }
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        if (crc != checksum(payload)) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        // 末尾是未写完整的记录
+                        break;
+                    }
+                    apply(payload, tasks, rules);
+                    validLength += 8 + payload.length;
+                    replayed++;
+                }
+            }
+        }
+
+        channel = FileChannel.open(journalFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            LOGGER.warning(String.format("预约日志末尾存在损坏记录，截断到 %d 字节", validLength));
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        appendedSinceCompaction = replayed;
+        running = true;
+        Thread thread = new Thread(this::writeLoop, "ScheduledBuild.journal");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        LOGGER.info(String.format("从预约日志重放了 %d 条记录", replayed));
+    }
+
+    private void apply(byte[] payload, Map<String, ScheduledBuildTask> tasks, Map<String, RecurringScheduleRule> rules) {
+        String body = new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8);
+        try {
+            switch (payload[0]) {
+                case PUT_TASK:
+                    ScheduledBuildTask task = (ScheduledBuildTask) Jenkins.XSTREAM2.fromXML(body);
+                    tasks.put(task.getId(), task);
+                    break;
+                case REMOVE_TASK:
+                    tasks.remove(body);
+                    break;
+                case PUT_RULE:
+                    RecurringScheduleRule rule = (RecurringScheduleRule) Jenkins.XSTREAM2.fromXML(body);
+                    rules.put(rule.getId(), rule);
+                    break;
+                case REMOVE_RULE:
+                    rules.remove(body);
+                    break;
+                default:
+                    LOGGER.warning("未知的预约日志记录类型: " + payload[0]);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "跳过无法解析的预约日志记录", e);
+        }
+    }
+
+    @Override
+    public void taskChanged(ScheduledBuildTask task) {
+        append(new Record(PUT_TASK, task.copy()));
+    }
+
+    @Override
+    public void taskRemoved(ScheduledBuildTask task) {
+        append(new Record(REMOVE_TASK, task.getId()));
+    }
+
+    @Override
+    public void ruleChanged(RecurringScheduleRule rule) {
+        append(new Record(PUT_RULE, rule.copy()));
+    }
+
+    @Override
+    public void ruleRemoved(RecurringScheduleRule rule) {
+        append(new Record(REMOVE_RULE, rule.getId()));
+    }
+
+    private void append(Record record) {
+        synchronized (progress) {
+            enqueued++;
+            queue.add(record);
+        }
+    }
+
+    @Override
+    public void flush() {
+        Thread thread = writer;
+        synchronized (progress) {
+            long target = enqueued;
+            while (durable < target && thread != null && thread.isAlive()) {
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        flush();
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写线程：取出当前积压的所有记录，一次写入并 fsync
+     */
+    private void writeLoop() {
+        List<Record> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Record first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                if (shouldCompact()) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "写入预约日志失败", e);
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "关闭预约日志失败", e);
+        }
+    }
+
+    private void writeBatch(List<Record> batch) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(batch.size());
+        int size = 0;
+        for (Record record : batch) {
+            try {
+                byte[] payload = record.payload();
+                payloads.add(payload);
+                size += 8 + payload.length;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "序列化预约日志记录失败，跳过该记录", e);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] payload : payloads) {
+            buffer.putInt(payload.length);
+            buffer.putInt(checksum(payload));
+            buffer.put(payload);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+
+        appendedSinceCompaction += batch.size();
+        synchronized (progress) {
+            durable += batch.size();
+            progress.notifyAll();
+        }
+        LOGGER.fine(String.format("预约日志写入 %d 条记录（%d 字节）", batch.size(), size));
+    }
+
+    private boolean shouldCompact() {
+        if (appendedSinceCompaction == 0) {
+            return false;
+        }
+        return appendedSinceCompaction >= COMPACT_THRESHOLD
+                || System.currentTimeMillis() - lastCompaction >= COMPACT_INTERVAL_MILLIS;
+    }
+
+    /**
+     * 写入完整快照后清空日志
+     * 快照反映的是此刻的内存状态，其中已包含所有已落盘记录的变更；
+     * 尚在队列中的记录会写入清空后的日志，重放时覆盖快照中的相同状态。
+     */
+    private void compact() throws IOException {
+        long start = System.currentTimeMillis();
+        manager.writeSnapshot();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        LOGGER.info(String.format("预约日志压缩完成：合并 %d 条记录，耗时 %d 毫秒",
+                appendedSinceCompaction, System.currentTimeMillis() - start));
+        appendedSinceCompaction = 0;
+        lastCompaction = System.currentTimeMillis();
+    }
+
+    /**
+     * 待写入的日志记录：任务和规则为调用方复制出的副本，ID 为删除记录
+     */
+    private static final class Record {
+        private final byte type;
+        private final Object value;
+
+        Record(byte type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        byte[] payload() {
+            String body = value instanceof String ? (String) value : Jenkins.XSTREAM2.toXML(value);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            byte[] payload = new byte[bytes.length + 1];
+            payload[0] = type;
+            System.arraycopy(bytes, 0, payload, 1, bytes.length);
+            return payload;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,115 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 限速的补触发队列
+ * 长时间停机后错过的任务可能很多，按固定速率分批交给分发回调，避免 Jenkins 恢复时瞬间涌入大量构建。
+ * 迟到不超过阈值、不算错过的任务走不限速的通道，但同样要等到 Jenkins 加载完任务后才触发。
+ * 队列中的任务仍处于 PENDING 状态，期间被取消的任务会在分发时被跳过。
+ */
+class MisfireCatchUp {
+    private static final Logger LOGGER = Logger.getLogger(MisfireCatchUp.class.getName());
+
+    private static final long MIN_INTERVAL_MILLIS = 1000;
+    // 等待 Jenkins 就绪时的检查间隔
+    private static final long NOT_READY_DELAY_MILLIS = 5000;
+
+    private final ArrayDeque<ScheduledBuildTask> queue = new ArrayDeque<>();
+    private final ArrayDeque<ScheduledBuildTask> urgent = new ArrayDeque<>();
+    private final Consumer<List<ScheduledBuildTask>> dispatch;
+    private final BooleanSupplier ready;
+    private final ScheduledExecutorService executor;
+    // 每批之间的间隔和每批的数量；perMinute 为 0 时不限速
+    private final long intervalMillis;
+    private final int batchSize;
+    // 是否已有排空任务在运行，受 this 锁保护
+    private boolean draining;
+
+    MisfireCatchUp(Consumer<List<ScheduledBuildTask>> dispatch, BooleanSupplier ready,
+                   ScheduledExecutorService executor, int perMinute) {
+        this.dispatch = dispatch;
+        this.ready = ready;
+        this.executor = executor;
+        if (perMinute <= 0) {
+            this.intervalMillis = 0;
+            this.batchSize = Integer.MAX_VALUE;
+        } else {
+            this.intervalMillis = Math.max(MIN_INTERVAL_MILLIS, TimeUnit.MINUTES.toMillis(1) / perMinute);
+            this.batchSize = (int) Math.max(1, perMinute * intervalMillis / TimeUnit.MINUTES.toMillis(1));
+        }
+    }
+
+    /**
+     * 加入补触发队列，按预约时间先后触发
+     */
+    void submit(Collection<ScheduledBuildTask> tasks) {
+        enqueue(queue, tasks);
+    }
+
+    /**
+     * 不限速，尽快触发
+     */
+    void submitNow(Collection<ScheduledBuildTask> tasks) {
+        enqueue(urgent, tasks);
+    }
+
+    private void enqueue(ArrayDeque<ScheduledBuildTask> target, Collection<ScheduledBuildTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            target.addAll(tasks);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        executor.execute(this::drain);
+    }
+
+    /**
+     * 尚未补触发的任务数
+     */
+    synchronized int size() {
+        return queue.size() + urgent.size();
+    }
+
+    private void drain() {
+        if (!ready.getAsBoolean()) {
+            executor.schedule(this::drain, NOT_READY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        List<ScheduledBuildTask> batch = new ArrayList<>();
+        synchronized (this) {
+            batch.addAll(urgent);
+            urgent.clear();
+            for (int n = 0; n < batchSize && !queue.isEmpty(); n++) {
+                batch.add(queue.poll());
+            }
+            if (batch.isEmpty()) {
+                draining = false;
+                return;
+            }
+        }
+        try {
+            dispatch.accept(batch);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "补触发错过的预约任务失败", e);
+        }
+        if (intervalMillis > 0) {
+            executor.schedule(this::drain, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            executor.execute(this::drain);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import jenkins.util.SystemProperties;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * 错过触发时间（例如 Jenkins 停机期间到期）后的处理策略
+ */
+public enum MisfirePolicy {
+    SKIP("跳过"),                  // 不再触发，记为已错过
+    FIRE_ONCE("补触发一次"),        // 同一规则错过多次时只补触发最近的一次
+    FIRE_ALL("全部补触发");         // 每次错过的执行都补触发
+
+    private static final Logger LOGGER = Logger.getLogger(MisfirePolicy.class.getName());
+
+    private final String displayName;
+
+    MisfirePolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 未单独设置策略的任务和规则使用的默认策略
+     */
+    static MisfirePolicy defaultPolicy() {
+        String name = SystemProperties.getString(ScheduledBuildManager.class.getName() + ".misfirePolicy");
+        try {
+            MisfirePolicy policy = parse(name);
+            return policy != null ? policy : SKIP;
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning(e.getMessage() + "，使用 " + SKIP);
+            return SKIP;
+        }
+    }
+
+    /**
+     * 解析策略名称，空值返回 null
+     * @throws IllegalArgumentException 名称无效
+     */
+    static MisfirePolicy parse(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的错过触发策略: " + name, e);
+        }
+    }
+}
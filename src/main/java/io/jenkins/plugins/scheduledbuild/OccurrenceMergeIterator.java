@@ -0,0 +1,67 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * 多条规则执行时间的 k 路归并
+ * 每条规则只保留一个游标，堆中最多 k 个元素，取出一个执行时间的开销为 O(log k)；
+ * 各规则的执行时间按需计算，调用方可以随时停止。
+ */
+final class OccurrenceMergeIterator implements Iterator<RecurringOccurrence> {
+
+    private final PriorityQueue<Cursor> heap;
+
+    OccurrenceMergeIterator(Collection<RecurringScheduleRule> rules, long from, long to) {
+        this.heap = new PriorityQueue<>(Math.max(1, rules.size()));
+        for (RecurringScheduleRule rule : rules) {
+            PrimitiveIterator.OfLong occurrences = rule.occurrences(from, to);
+            if (occurrences.hasNext()) {
+                heap.add(new Cursor(rule, occurrences, occurrences.nextLong()));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heap.isEmpty();
+    }
+
+    @Override
+    public RecurringOccurrence next() {
+        Cursor cursor = heap.poll();
+        if (cursor == null) {
+            throw new NoSuchElementException();
+        }
+        RecurringOccurrence occurrence = new RecurringOccurrence(cursor.rule, cursor.time);
+        if (cursor.occurrences.hasNext()) {
+            cursor.time = cursor.occurrences.nextLong();
+            heap.add(cursor);
+        }
+        return occurrence;
+    }
+
+    /**
+     * 单条规则的游标：按当前执行时间排序，时间相同时按规则ID区分
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final RecurringScheduleRule rule;
+        private final PrimitiveIterator.OfLong occurrences;
+        private long time;
+
+        Cursor(RecurringScheduleRule rule, PrimitiveIterator.OfLong occurrences, long time) {
+            this.rule = rule;
+            this.occurrences = occurrences;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(Cursor o) {
+            int c = Long.compare(time, o.time);
+            return c != 0 ? c : rule.getId().compareTo(o.rule.getId());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 合并写入的异步持久化线程
+ * 调用方只标记"有变更"，同一个时间间隔内的多次变更合并为一次写入，
+ * 写入在专用线程中执行，不占用触发构建或页面请求的线程。
+ */
+class PersistenceWriter {
+    private static final Logger LOGGER = Logger.getLogger(PersistenceWriter.class.getName());
+
+    private final String name;
+    private final long intervalMillis;
+    private final Runnable write;
+    private final ScheduledExecutorService executor;
+
+    // 自上次写入以来的变更次数
+    private final AtomicInteger dirty = new AtomicInteger();
+
+    // 以下统计受 this 锁保护
+    private long writeCount;
+    private long absorbedTotal;
+    private int lastAbsorbed;
+
+    PersistenceWriter(String name, long intervalMillis, Runnable write) {
+        this.name = name;
+        this.intervalMillis = intervalMillis;
+        this.write = write;
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                new NamingThreadFactory(new DaemonThreadFactory(), "ScheduledBuild.persist." + name));
+    }
+
+    /**
+     * 标记有新的变更，第一次标记时安排一次延迟写入
+     */
+    void markDirty() {
+        if (dirty.getAndIncrement() == 0) {
+            try {
+                executor.schedule(this::writeNow, intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // 已关闭，直接同步写入
+                writeNow();
+            }
+        }
+    }
+
+    /**
+     * 立即写入尚未持久化的变更
+     */
+    void flush() {
+        writeNow();
+    }
+
+    /**
+     * 写入剩余变更并停止线程
+     */
+    void close() {
+        executor.shutdown();
+        writeNow();
+    }
+
+    private synchronized void writeNow() {
+        int absorbed = dirty.getAndSet(0);
+        if (absorbed == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            write.run();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, String.format("[%s] 持久化失败，%d 次变更将在下次写入时重试", name, absorbed), e);
+            // 恢复计数，确保下一次标记或 flush 会再次写入
+            if (dirty.getAndAdd(absorbed) == 0 && !executor.isShutdown()) {
+                executor.schedule(this::writeNow, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        writeCount++;
+        absorbedTotal += absorbed;
+        lastAbsorbed = absorbed;
+        LOGGER.fine(String.format("[%s] 一次写入合并了 %d 次变更，耗时 %d 毫秒",
+                name, absorbed, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * 已执行的写入次数
+     */
+    synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * 所有写入合并的变更总数
+     */
+    synchronized long getAbsorbedTotal() {
+        return absorbedTotal;
+    }
+
+    /**
+     * 最近一次写入合并的变更数
+     */
+    synchronized int getLastAbsorbed() {
+        return lastAbsorbed;
+    }
+}
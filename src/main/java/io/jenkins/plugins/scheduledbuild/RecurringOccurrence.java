@@ -0,0 +1,41 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.Date;
+
+/**
+ * 周期性规则的一次执行
+ */
+public final class RecurringOccurrence {
+    private final RecurringScheduleRule rule;
+    private final long time;
+
+    RecurringOccurrence(RecurringScheduleRule rule, long time) {
+        this.rule = rule;
+        this.time = time;
+    }
+
+    public RecurringScheduleRule getRule() {
+        return rule;
+    }
+
+    public String getRuleId() {
+        return rule.getId();
+    }
+
+    public String getJobName() {
+        return rule.getJobName();
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public Date getDate() {
+        return new Date(time);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RecurringOccurrence[rule=%s, job=%s, time=%s]", rule.getId(), rule.getJobName(), new Date(time));
+    }
+}
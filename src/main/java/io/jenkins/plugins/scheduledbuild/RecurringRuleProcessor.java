@@ -0,0 +1,161 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 周期性规则处理器
+ * 按"下一次需要处理的时间"把规则放入有序集合，单个线程只等待到最早的那条规则到期再处理，
+ * 无需周期性遍历全部规则。增加、更新、删除规则都是 O(log n)。
+ *
+ * 处理回调在处理器锁之外执行，回调内应通过 {@link #schedule} 重新登记规则的下一次处理时间，
+ * 不登记则规则离开队列，直到再次被登记。
+ */
+class RecurringRuleProcessor {
+    private static final Logger LOGGER = Logger.getLogger(RecurringRuleProcessor.class.getName());
+
+    // 单次等待的上限，系统时间被调整后最多延迟这么久就能重新计算
+    private static final long MAX_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // 处理失败后的重试间隔
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Consumer<String> handler;
+    private final TreeSet<Entry> queue = new TreeSet<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    RecurringRuleProcessor(Consumer<String> handler) {
+        this.handler = handler;
+        this.thread = new NamingThreadFactory(new DaemonThreadFactory(), "ScheduledBuild.recurring")
+                .newThread(this::run);
+        this.thread.start();
+    }
+
+    /**
+     * 登记或更新规则的下一次处理时间
+     */
+    void schedule(String ruleId, long time) {
+        lock.lock();
+        try {
+            Entry old = entries.remove(ruleId);
+            if (old != null) {
+                queue.remove(old);
+            }
+            Entry entry = new Entry(time, ruleId);
+            entries.put(ruleId, entry);
+            queue.add(entry);
+            // 只有新的队首早于当前等待的时间时才需要唤醒处理线程
+            if (queue.first() == entry) {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把规则移出队列
+     */
+    void remove(String ruleId) {
+        lock.lock();
+        try {
+            Entry old = entries.remove(ruleId);
+            if (old != null) {
+                queue.remove(old);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 队列中的规则数
+     */
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            String ruleId;
+            try {
+                ruleId = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                handler.accept(ruleId);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "处理周期性规则失败: " + ruleId, e);
+                schedule(ruleId, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * 等待并取出最早到期的规则
+     */
+    private String take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (queue.isEmpty()) {
+                    changed.await();
+                    continue;
+                }
+                Entry first = queue.first();
+                long delay = first.time - System.currentTimeMillis();
+                if (delay <= 0) {
+                    queue.pollFirst();
+                    entries.remove(first.ruleId);
+                    return first.ruleId;
+                }
+                changed.await(Math.min(delay, MAX_WAIT_MILLIS), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 队列项：按处理时间排序，时间相同时按规则ID区分
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final long time;
+        private final String ruleId;
+
+        Entry(long time, String ruleId) {
+            this.time = time;
+            this.ruleId = ruleId;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Long.compare(time, o.time);
+            return c != 0 ? c : ruleId.compareTo(o.ruleId);
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package io.jenkins.plugins.scheduledbuild;
 
 import java.io.Serializable;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * 周期性调度规则
@@ -12,6 +17,11 @@ public class RecurringScheduleRule implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger(RecurringScheduleRule.class.getName());
 
+    // 分散窗口的上限：一天
+    static final int MAX_SPREAD_MINUTES = 24 * 60;
+    // 与 Cron 的 H 字段使用不同的散列，避免偏移与 H 的取值相关
+    private static final int SPREAD_SALT = 5;
+
     /**
      * 调度类型
      */
@@ -33,7 +43,8 @@ public class RecurringScheduleRule implements Serializable {
     }
 
     private final String id;
-    private final String jobName;
+    // 任务重命名或移动时由 ScheduledBuildManager 更新
+    private volatile String jobName;
     private final ScheduleType scheduleType;
     private final String description;
     private final Map<String, String> parameters;
@@ -58,6 +69,27 @@ public class RecurringScheduleRule implements Serializable {
     private Long startTime;  // null表示立即生效
     private Long endTime;    // null表示永不结束
 
+    // 时区ID（如 Asia/Shanghai），null 表示使用 Jenkins 所在系统的时区
+    private String timeZone;
+
+    // 错过执行时间后的处理策略，null 表示使用默认策略
+    private MisfirePolicy misfirePolicy;
+
+    // 生成的构建在队列中的优先级，null 表示默认优先级
+    private SchedulePriority priority;
+
+    // 生成的任务提前入队的秒数，0 表示准时提交
+    private int leadSeconds;
+
+    // 分散窗口（分钟）：执行时间按规则ID的散列在窗口内固定后移，0 表示不分散
+    private int spreadMinutes;
+
+    // 编译后的调度，首次计算时生成，调度配置变化时清空
+    private transient volatile ScheduleEvaluator compiled;
+
+    // 叠加分散偏移后的调度，与 compiled 一起失效
+    private transient volatile ScheduleEvaluator evaluator;
+
     /**
      * 私有构造函数，通过工厂方法创建
      */
@@ -72,6 +104,59 @@ public class RecurringScheduleRule implements Serializable {
         this.createdTime = System.currentTimeMillis();
     }
 
+    /**
+     * 从快照恢复规则，保留原有ID和创建时间
+     */
+    RecurringScheduleRule(String id, String jobName, ScheduleType scheduleType, Map<String, String> parameters,
+                          String description, boolean enabled, long createdTime) {
+        this.id = id;
+        this.jobName = jobName;
+        this.scheduleType = scheduleType;
+        this.parameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
+        this.description = description;
+        this.enabled = enabled;
+        this.createdTime = createdTime;
+    }
+
+    /**
+     * 从快照恢复调度配置
+     */
+    void restoreSchedule(String dailyTime, Set<Integer> weekDays, String weeklyTime,
+                         Set<Integer> monthDays, String monthlyTime, String cronExpression) {
+        this.dailyTime = dailyTime;
+        this.weekDays = weekDays;
+        this.weeklyTime = weeklyTime;
+        this.monthDays = monthDays;
+        this.monthlyTime = monthlyTime;
+        this.cronExpression = cronExpression;
+        invalidate();
+    }
+
+    /**
+     * 编辑规则：复制本规则的配置，沿用原规则的ID、创建时间和启用状态
+     * ID 不变，分散偏移也保持不变。
+     */
+    RecurringScheduleRule replacing(RecurringScheduleRule original) {
+        RecurringScheduleRule rule = new RecurringScheduleRule(original.id, jobName, scheduleType, parameters,
+                description, original.enabled, original.createdTime);
+        rule.restoreSchedule(dailyTime, getWeekDays(), weeklyTime, getMonthDays(), monthlyTime, cronExpression);
+        rule.startTime = startTime;
+        rule.endTime = endTime;
+        rule.timeZone = timeZone;
+        rule.misfirePolicy = misfirePolicy;
+        rule.priority = priority;
+        rule.leadSeconds = leadSeconds;
+        rule.spreadMinutes = spreadMinutes;
+        return rule;
+    }
+
+    /**
+     * 复制当前配置和状态，用于在锁外序列化
+     */
+    RecurringScheduleRule copy() {
+        return replacing(this);
+    }
+
     /**
      * 工厂方法：创建每天执行的规则
      */
@@ -123,6 +208,10 @@ public class RecurringScheduleRule implements Serializable {
         return jobName;
     }
 
+    void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
     public ScheduleType getScheduleType() {
         return scheduleType;
     }
@@ -187,6 +276,100 @@ public class RecurringScheduleRule implements Serializable {
         this.endTime = endTime;
     }
 
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * 设置规则的时区，null 或空字符串表示使用系统时区
+     * @throws IllegalArgumentException 时区ID无效
+     */
+    public void setTimeZone(String timeZone) {
+        if (timeZone != null && timeZone.trim().isEmpty()) {
+            timeZone = null;
+        }
+        if (timeZone != null) {
+            try {
+                ZoneId.of(timeZone);
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("无效的时区: " + timeZone, e);
+            }
+        }
+        this.timeZone = timeZone;
+        invalidate();
+    }
+
+    public MisfirePolicy getMisfirePolicy() {
+        return misfirePolicy;
+    }
+
+    public int getSpreadMinutes() {
+        return spreadMinutes;
+    }
+
+    /**
+     * 设置分散窗口
+     * 共用同一执行时间的规则按各自ID的散列在 [0, spreadMinutes) 分钟内错开，同一规则的偏移始终不变。
+     * @throws IllegalArgumentException 超出 0 到 MAX_SPREAD_MINUTES 的范围
+     */
+    public void setSpreadMinutes(int spreadMinutes) {
+        if (spreadMinutes < 0 || spreadMinutes > MAX_SPREAD_MINUTES) {
+            throw new IllegalArgumentException(String.format("分散窗口应在 0 到 %d 分钟之间: %d",
+                    MAX_SPREAD_MINUTES, spreadMinutes));
+        }
+        this.spreadMinutes = spreadMinutes;
+        invalidate();
+    }
+
+    /**
+     * 分散后相对原定执行时间的固定偏移（毫秒）
+     */
+    public long getSpreadOffsetMillis() {
+        if (spreadMinutes <= 0) {
+            return 0;
+        }
+        int seconds = spreadMinutes * 60;
+        return TimeUnit.SECONDS.toMillis(Math.floorMod(CronSchedule.mix(id.hashCode(), SPREAD_SALT), seconds));
+    }
+
+    public void setMisfirePolicy(MisfirePolicy misfirePolicy) {
+        this.misfirePolicy = misfirePolicy;
+    }
+
+    public SchedulePriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(SchedulePriority priority) {
+        this.priority = priority;
+    }
+
+    public int getLeadSeconds() {
+        return leadSeconds;
+    }
+
+    /**
+     * 设置提前入队时间：生成的任务提前这么多秒进入构建队列，带有在执行时间恰好结束的静默期
+     * @throws IllegalArgumentException 超出 0 到 ScheduledBuildTask.MAX_LEAD_SECONDS 的范围
+     */
+    public void setLeadSeconds(int leadSeconds) {
+        this.leadSeconds = ScheduledBuildTask.checkLeadSeconds(leadSeconds);
+    }
+
+    /**
+     * 规则使用的时区
+     */
+    public ZoneId getZoneId() {
+        if (timeZone != null) {
+            try {
+                return ZoneId.of(timeZone);
+            } catch (DateTimeException e) {
+                LOGGER.warning("规则 " + id + " 的时区无效，使用系统时区: " + timeZone);
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
     /**
      * 获取规则的可读描述
      */
@@ -208,6 +391,12 @@ public class RecurringScheduleRule implements Serializable {
                 sb.append(cronExpression);
                 break;
         }
+        if (timeZone != null) {
+            sb.append(" (").append(timeZone).append(")");
+        }
+        if (spreadMinutes > 0) {
+            sb.append(" [分散 ").append(spreadMinutes).append(" 分钟]");
+        }
         
         return sb.toString();
     }
@@ -273,28 +462,17 @@ public class RecurringScheduleRule implements Serializable {
             return null;
         }
 
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(fromTime);
-        
-        Long nextTime = null;
-        
-        switch (scheduleType) {
-            case DAILY:
-                nextTime = calculateNextDailyTime(cal);
-                break;
-            case WEEKLY:
-                nextTime = calculateNextWeeklyTime(cal);
-                break;
-            case MONTHLY:
-                nextTime = calculateNextMonthlyTime(cal);
-                break;
-            case CRON:
-                nextTime = calculateNextCronTime(cal);
-                break;
+        ScheduleEvaluator schedule = evaluator();
+        if (schedule == null) {
+            return null;
+        }
+        long nextTime = schedule.next(fromTime);
+        if (nextTime == ScheduleEvaluator.NONE) {
+            return null;
         }
 
         // 确保下一次执行时间在有效范围内
-        if (nextTime != null && endTime != null && nextTime >= endTime) {
+        if (endTime != null && nextTime >= endTime) {
             return null;
         }
 
@@ -302,147 +480,111 @@ public class RecurringScheduleRule implements Serializable {
     }
 
     /**
-     * 计算每天的下一次执行时间
+     * 惰性遍历 (from, to] 范围内的执行时间，按时间递增
+     * 遵守生效时间范围，但不考虑规则是否启用；每次只计算下一个值，提前停止没有额外开销。
      */
-    private Long calculateNextDailyTime(Calendar fromCal) {
-        if (dailyTime == null) {
-            return null;
-        }
+    public PrimitiveIterator.OfLong occurrences(long from, long to) {
+        return iterate(evaluator(), from, to);
+    }
 
-        try {
-            String[] parts = dailyTime.split(":");
-            int hour = Integer.parseInt(parts[0]);
-            int minute = Integer.parseInt(parts[1]);
+    /**
+     * 不考虑分散窗口时 (from, to] 范围内的原定执行时间
+     */
+    PrimitiveIterator.OfLong nominalOccurrences(long from, long to) {
+        return iterate(compiled(), from, to);
+    }
 
-            Calendar nextCal = (Calendar) fromCal.clone();
-            nextCal.set(Calendar.HOUR_OF_DAY, hour);
-            nextCal.set(Calendar.MINUTE, minute);
-            nextCal.set(Calendar.SECOND, 0);
-            nextCal.set(Calendar.MILLISECOND, 0);
+    private PrimitiveIterator.OfLong iterate(ScheduleEvaluator schedule, long from, long to) {
+        long lower = startTime != null ? Math.max(from, startTime) : from;
+        long upper = endTime != null ? Math.min(to, endTime - 1) : to;
+        return new PrimitiveIterator.OfLong() {
+            private long next = schedule != null && lower < upper ? schedule.next(lower) : ScheduleEvaluator.NONE;
 
-            // 如果今天的时间已过，则设置为明天
-            if (nextCal.getTimeInMillis() <= fromCal.getTimeInMillis()) {
-                nextCal.add(Calendar.DAY_OF_MONTH, 1);
+            @Override
+            public boolean hasNext() {
+                return next != ScheduleEvaluator.NONE && next <= upper;
             }
 
-            return nextCal.getTimeInMillis();
-        } catch (Exception e) {
-            LOGGER.warning("解析每天执行时间失败: " + dailyTime + ", " + e.getMessage());
-            return null;
-        }
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long current = next;
+                next = schedule.next(current);
+                return current;
+            }
+        };
     }
 
     /**
-     * 计算每周的下一次执行时间
+     * (from, to] 范围内执行时间的有序流
      */
-    private Long calculateNextWeeklyTime(Calendar fromCal) {
-        if (weekDays == null || weekDays.isEmpty() || weeklyTime == null) {
-            return null;
-        }
+    public LongStream occurrenceStream(long from, long to) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(occurrences(from, to),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
 
-        try {
-            String[] parts = weeklyTime.split(":");
-            int hour = Integer.parseInt(parts[0]);
-            int minute = Integer.parseInt(parts[1]);
-
-            // 尝试未来7天内的每一天
-            for (int i = 0; i < 7; i++) {
-                Calendar nextCal = (Calendar) fromCal.clone();
-                nextCal.add(Calendar.DAY_OF_MONTH, i);
-                
-                int dayOfWeek = nextCal.get(Calendar.DAY_OF_WEEK);
-                // 转换为1-7（周一到周日）
-                int dayNum = (dayOfWeek == Calendar.SUNDAY) ? 7 : dayOfWeek - 1;
-
-                if (weekDays.contains(dayNum)) {
-                    nextCal.set(Calendar.HOUR_OF_DAY, hour);
-                    nextCal.set(Calendar.MINUTE, minute);
-                    nextCal.set(Calendar.SECOND, 0);
-                    nextCal.set(Calendar.MILLISECOND, 0);
-
-                    if (nextCal.getTimeInMillis() > fromCal.getTimeInMillis()) {
-                        return nextCal.getTimeInMillis();
-                    }
-                }
+    /**
+     * 实际使用的调度：在编译后的调度上叠加分散偏移，配置无效时返回 null
+     */
+    private ScheduleEvaluator evaluator() {
+        ScheduleEvaluator wrapped = evaluator;
+        if (wrapped == null) {
+            ScheduleEvaluator schedule = compiled();
+            if (schedule == null) {
+                return null;
             }
-
-            return null;
-        } catch (Exception e) {
-            LOGGER.warning("解析每周执行时间失败: " + weeklyTime + ", " + e.getMessage());
-            return null;
+            long offset = getSpreadOffsetMillis();
+            wrapped = offset == 0 ? schedule : fromTime -> {
+                long next = schedule.next(fromTime - offset);
+                return next == ScheduleEvaluator.NONE ? ScheduleEvaluator.NONE : next + offset;
+            };
+            evaluator = wrapped;
         }
+        return wrapped;
     }
 
     /**
-     * 计算每月的下一次执行时间
+     * 调度配置、时区或分散窗口变化后清除缓存的调度
      */
-    private Long calculateNextMonthlyTime(Calendar fromCal) {
-        if (monthDays == null || monthDays.isEmpty() || monthlyTime == null) {
-            return null;
-        }
-
-        try {
-            String[] parts = monthlyTime.split(":");
-            int hour = Integer.parseInt(parts[0]);
-            int minute = Integer.parseInt(parts[1]);
-
-            // 尝试当前月份的每一天
-            Calendar nextCal = (Calendar) fromCal.clone();
-            int maxDayOfMonth = nextCal.getActualMaximum(Calendar.DAY_OF_MONTH);
-
-            for (int day : monthDays) {
-                if (day > maxDayOfMonth) {
-                    continue; // 跳过不存在的日期（如2月31日）
-                }
-
-                nextCal = (Calendar) fromCal.clone();
-                nextCal.set(Calendar.DAY_OF_MONTH, day);
-                nextCal.set(Calendar.HOUR_OF_DAY, hour);
-                nextCal.set(Calendar.MINUTE, minute);
-                nextCal.set(Calendar.SECOND, 0);
-                nextCal.set(Calendar.MILLISECOND, 0);
-
-                if (nextCal.getTimeInMillis() > fromCal.getTimeInMillis()) {
-                    return nextCal.getTimeInMillis();
-                }
-            }
-
-            // 如果当前月份没有合适的日期，尝试下一个月
-            nextCal = (Calendar) fromCal.clone();
-            nextCal.add(Calendar.MONTH, 1);
-            nextCal.set(Calendar.DAY_OF_MONTH, 1);
-            maxDayOfMonth = nextCal.getActualMaximum(Calendar.DAY_OF_MONTH);
-
-            List<Integer> sortedDays = new ArrayList<>(monthDays);
-            Collections.sort(sortedDays);
-
-            for (int day : sortedDays) {
-                if (day <= maxDayOfMonth) {
-                    nextCal.set(Calendar.DAY_OF_MONTH, day);
-                    nextCal.set(Calendar.HOUR_OF_DAY, hour);
-                    nextCal.set(Calendar.MINUTE, minute);
-                    nextCal.set(Calendar.SECOND, 0);
-                    nextCal.set(Calendar.MILLISECOND, 0);
-                    return nextCal.getTimeInMillis();
-                }
-            }
-
-            return null;
-        } catch (Exception e) {
-            LOGGER.warning("解析每月执行时间失败: " + monthlyTime + ", " + e.getMessage());
-            return null;
-        }
+    private void invalidate() {
+        compiled = null;
+        evaluator = null;
     }
 
     /**
-     * 计算Cron表达式的下一次执行时间
-     * 注意：这里使用简化实现，实际项目可能需要更完整的Cron解析器
+     * 编译后的调度，配置无效时返回 null
      */
-    private Long calculateNextCronTime(Calendar fromCal) {
-        // TODO: 实现完整的Cron表达式解析
-        // 这里暂时返回null，后续可以集成cronutils等库
-        LOGGER.warning("Cron表达式支持尚未完全实现: " + cronExpression);
-        return null;
+    private ScheduleEvaluator compiled() {
+        ScheduleEvaluator schedule = compiled;
+        if (schedule == null) {
+            try {
+                switch (scheduleType) {
+                    case DAILY:
+                        schedule = CompiledSchedule.daily(dailyTime, getZoneId());
+                        break;
+                    case WEEKLY:
+                        schedule = CompiledSchedule.weekly(weekDays, weeklyTime, getZoneId());
+                        break;
+                    case MONTHLY:
+                        schedule = CompiledSchedule.monthly(monthDays, monthlyTime, getZoneId());
+                        break;
+                    case CRON:
+                        // H 以规则ID为种子，同一规则的散列取值保持稳定
+                        schedule = CronSchedule.parse(cronExpression, id, getZoneId());
+                        break;
+                    default:
+                        return null;
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("解析周期性规则失败: " + getScheduleDescription() + ", " + e.getMessage());
+                return null;
+            }
+            compiled = schedule;
+        }
+        return schedule;
     }
 
     /**
@@ -0,0 +1,151 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量预约操作
+ * 一批操作要么全部生效，要么在任一项校验失败时全部不生效；
+ * 生效时只安排一次定时、触发一次持久化。
+ */
+public final class ScheduleBatch {
+
+    private ScheduleBatch() {
+    }
+
+    /**
+     * 操作类型
+     */
+    public enum Type {
+        ADD,
+        UPDATE,
+        CANCEL
+    }
+
+    /**
+     * 单项操作
+     */
+    public static final class Operation {
+        private final Type type;
+        private final String taskId;
+        private final String jobName;
+        private final long scheduledTime;
+        private final Map<String, String> parameters;
+        private final String description;
+
+        private Operation(Type type, String taskId, String jobName, long scheduledTime,
+                          Map<String, String> parameters, String description) {
+            this.type = type;
+            this.taskId = taskId;
+            this.jobName = jobName;
+            this.scheduledTime = scheduledTime;
+            this.parameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
+            this.description = description;
+        }
+
+        public static Operation add(String jobName, long scheduledTime, Map<String, String> parameters, String description) {
+            return new Operation(Type.ADD, null, jobName, scheduledTime, parameters, description);
+        }
+
+        public static Operation update(String taskId, long scheduledTime, Map<String, String> parameters, String description) {
+            return new Operation(Type.UPDATE, taskId, null, scheduledTime, parameters, description);
+        }
+
+        public static Operation cancel(String taskId) {
+            return new Operation(Type.CANCEL, taskId, null, 0, null, null);
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public long getScheduledTime() {
+            return scheduledTime;
+        }
+
+        public Map<String, String> getParameters() {
+            return new HashMap<>(parameters);
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 单项操作的结果
+     */
+    public static final class ItemResult {
+        private final int index;
+        private final boolean success;
+        private final String taskId;
+        private final String message;
+
+        ItemResult(int index, boolean success, String taskId, String message) {
+            this.index = index;
+            this.success = success;
+            this.taskId = taskId;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * 新增/更新后的任务ID，取消时为原任务ID
+         */
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * 整批操作的结果
+     */
+    public static final class Result {
+        private final boolean applied;
+        private final List<ItemResult> items;
+        private final long elapsedMillis;
+
+        Result(boolean applied, List<ItemResult> items, long elapsedMillis) {
+            this.applied = applied;
+            this.items = Collections.unmodifiableList(new ArrayList<>(items));
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * 整批是否已生效
+         */
+        public boolean isApplied() {
+            return applied;
+        }
+
+        public List<ItemResult> getItems() {
+            return items;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
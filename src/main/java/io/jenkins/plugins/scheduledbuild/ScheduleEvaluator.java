@@ -0,0 +1,16 @@
+package io.jenkins.plugins.scheduledbuild;
+
+/**
+ * 编译后的周期性调度，计算下一次执行时间
+ */
+interface ScheduleEvaluator {
+
+    /** 没有下一次执行时间 */
+    long NONE = Long.MIN_VALUE;
+
+    /**
+     * 严格晚于 fromTime 的下一次执行时间
+     * @return 毫秒时间戳，没有时返回 {@link #NONE}
+     */
+    long next(long fromTime);
+}
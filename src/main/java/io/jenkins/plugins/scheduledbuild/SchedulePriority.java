@@ -0,0 +1,52 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.Locale;
+
+/**
+ * 预约构建在构建队列中的优先级
+ * 优先级越高，入队后相对其他排队项的提前量越大，参见 {@link ScheduledBuildQueueSorter}。
+ */
+public enum SchedulePriority {
+    HIGH("高", 1.0),
+    NORMAL("普通", 0.5),
+    LOW("低", 0.0);            // 只按迟到时间提前
+
+    private final String displayName;
+    // 优先级提前量占最大提前量的比例
+    private final double boostRatio;
+
+    SchedulePriority(String displayName, double boostRatio) {
+        this.displayName = displayName;
+        this.boostRatio = boostRatio;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    double getBoostRatio() {
+        return boostRatio;
+    }
+
+    /**
+     * 未设置优先级的规则和单次预约使用的优先级
+     */
+    static SchedulePriority defaultPriority() {
+        return NORMAL;
+    }
+
+    /**
+     * 解析优先级名称，空值返回 null
+     * @throws IllegalArgumentException 名称无效
+     */
+    static SchedulePriority parse(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的优先级: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 预约任务和周期性规则的二进制快照
+ * 相比 XStream XML，快照按字段顺序紧凑编码，启动时用 NIO 缓冲通道顺序读取。
+ *
+ * 文件格式（版本 1）：
+ * <pre>
+ * int 魔数 "SBSN" | int 版本
+ * int 任务名称数 | 任务名称...（任务和规则通过下标引用，加载后共享同一个字符串实例）
+ * int 任务数 | 任务记录...
+ * int 规则数 | 规则记录...
+ * </pre>
+ * 每条记录都以 int 长度开头；ID 为 UUID 时按两个 long 存储；
+ * 记录末尾的扩展字段表（键值对）用于后续新增的可选属性，旧版本读取时会忽略未知的键。
+ */
+final class ScheduleSnapshot {
+
+    private static final int MAGIC = 0x5342534E;
+    private static final int VERSION = 1;
+
+    private static final byte ID_STRING = 0;
+    private static final byte ID_UUID = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 扩展字段：任务状态名称，布尔标志无法表达 FAILED
+    private static final String STATE_KEY = "state";
+    // 扩展字段：规则任务对应的执行时间
+    private static final String OCCURRENCE_KEY = "occurrence";
+    // 扩展字段：错过触发时间后的处理策略（任务和规则）
+    private static final String MISFIRE_KEY = "misfire";
+    private static final String PRIORITY_KEY = "priority";
+    private static final String LEAD_KEY = "lead";
+    // 扩展字段：规则分散窗口（分钟）
+    private static final String SPREAD_KEY = "spread";
+    // 扩展字段：规则时区
+    private static final String TIME_ZONE_KEY = "timeZone";
+
+    private ScheduleSnapshot() {
+    }
+
+    /**
+     * 原子写入快照：先写临时文件并 fsync，再替换正式文件
+     */
+    static void write(File file, Collection<ScheduledBuildTask> tasks,
+                      Collection<RecurringScheduleRule> rules) throws IOException {
+        // 任务名称可能被并发的改名修改，每条记录只读取一次名称，名称表和记录使用同一个下标
+        Map<String, Integer> jobNames = new LinkedHashMap<>();
+        int[] taskJobs = new int[tasks.size()];
+        int i = 0;
+        for (ScheduledBuildTask task : tasks) {
+            taskJobs[i++] = jobNames.computeIfAbsent(task.getJobName(), name -> jobNames.size());
+        }
+        int[] ruleJobs = new int[rules.size()];
+        i = 0;
+        for (RecurringScheduleRule rule : rules) {
+            ruleJobs[i++] = jobNames.computeIfAbsent(rule.getJobName(), name -> jobNames.size());
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(jobNames.size());
+            for (String name : jobNames.keySet()) {
+                writeString(out, name);
+            }
+
+            ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+            DataOutputStream record = new DataOutputStream(recordBytes);
+
+            out.writeInt(tasks.size());
+            i = 0;
+            for (ScheduledBuildTask task : tasks) {
+                recordBytes.reset();
+                writeTask(record, task, taskJobs[i++]);
+                record.flush();
+                out.writeInt(recordBytes.size());
+                recordBytes.writeTo(out);
+            }
+
+            out.writeInt(rules.size());
+            i = 0;
+            for (RecurringScheduleRule rule : rules) {
+                recordBytes.reset();
+                writeRule(record, rule, ruleJobs[i++]);
+                record.flush();
+                out.writeInt(recordBytes.size());
+                recordBytes.writeTo(out);
+            }
+
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取快照到给定的集合中
+     * @throws IOException 文件损坏或版本不支持
+     */
+    static void read(File file, Map<String, ScheduledBuildTask> tasks,
+                     Map<String, RecurringScheduleRule> rules) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ChannelInput in = new ChannelInput(channel);
+            ByteBuffer header = in.buffer(8);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("不是预约快照文件: " + file);
+            }
+            int version = header.getInt();
+            if (version > VERSION) {
+                throw new IOException("不支持的预约快照版本: " + version);
+            }
+
+            String[] jobNames = new String[in.buffer(4).getInt()];
+            for (int i = 0; i < jobNames.length; i++) {
+                int length = in.buffer(4).getInt();
+                jobNames[i] = decode(in.buffer(length), length);
+            }
+
+            int taskCount = in.buffer(4).getInt();
+            for (int i = 0; i < taskCount; i++) {
+                int length = in.buffer(4).getInt();
+                ByteBuffer record = in.record(length);
+                ScheduledBuildTask task = readTask(record, jobNames);
+                tasks.put(task.getId(), task);
+            }
+
+            int ruleCount = in.buffer(4).getInt();
+            for (int i = 0; i < ruleCount; i++) {
+                int length = in.buffer(4).getInt();
+                ByteBuffer record = in.record(length);
+                RecurringScheduleRule rule = readRule(record, jobNames);
+                rules.put(rule.getId(), rule);
+            }
+        }
+    }
+
+    // ==================== 任务 ====================
+
+    private static void writeTask(DataOutputStream out, ScheduledBuildTask task, int jobIndex) throws IOException {
+        writeId(out, task.getId());
+        out.writeInt(jobIndex);
+        out.writeLong(task.getScheduledTime());
+        out.writeBoolean(task.isCancelled());
+        out.writeBoolean(task.isExecuted());
+        writeString(out, task.getDescription());
+        writeNullableId(out, task.getRecurringRuleId());
+        writeMap(out, task.getParameters());
+        Map<String, String> extras = new HashMap<>();
+        extras.put(STATE_KEY, task.getState().name());
+        if (task.getOccurrenceTime() != null) {
+            extras.put(OCCURRENCE_KEY, Long.toString(task.getOccurrenceTime()));
+        }
+        if (task.getMisfirePolicy() != null) {
+            extras.put(MISFIRE_KEY, task.getMisfirePolicy().name());
+        }
+        if (task.getPriority() != null) {
+            extras.put(PRIORITY_KEY, task.getPriority().name());
+        }
+        if (task.getLeadSeconds() > 0) {
+            extras.put(LEAD_KEY, Integer.toString(task.getLeadSeconds()));
+        }
+        writeMap(out, extras);
+    }
+
+    private static ScheduledBuildTask readTask(ByteBuffer in, String[] jobNames) {
+        String id = readId(in);
+        String jobName = jobNames[in.getInt()];
+        long scheduledTime = in.getLong();
+        boolean cancelled = in.get() != 0;
+        boolean executed = in.get() != 0;
+        String description = readString(in);
+        String ruleId = readNullableId(in);
+        Map<String, String> parameters = readMap(in);
+        Map<String, String> extras = readMap(in);
+
+        ScheduledBuildTask task = new ScheduledBuildTask(id, jobName, scheduledTime, parameters, description, ruleId);
+        ScheduledBuildTask.State state = executed ? ScheduledBuildTask.State.QUEUED
+                : cancelled ? ScheduledBuildTask.State.CANCELLED : ScheduledBuildTask.State.PENDING;
+        String stateName = extras.get(STATE_KEY);
+        if (stateName != null) {
+            try {
+                state = ScheduledBuildTask.State.valueOf(stateName);
+            } catch (IllegalArgumentException e) {
+                // 更新版本写入的未知状态，沿用布尔标志推导的结果
+            }
+        }
+        task.restoreState(state);
+        String occurrence = extras.get(OCCURRENCE_KEY);
+        if (occurrence != null) {
+            try {
+                task.setOccurrenceTime(Long.parseLong(occurrence));
+            } catch (NumberFormatException e) {
+                // 忽略损坏的扩展字段，按旧数据处理
+            }
+        }
+        task.restoreOccurrence();
+        task.setMisfirePolicy(readMisfirePolicy(extras));
+        task.setPriority(readPriority(extras));
+        task.setLeadSeconds(readLeadSeconds(extras));
+        return task;
+    }
+
+    // ==================== 规则 ====================
+
+    private static void writeRule(DataOutputStream out, RecurringScheduleRule rule, int jobIndex) throws IOException {
+        writeId(out, rule.getId());
+        out.writeInt(jobIndex);
+        out.writeByte(rule.getScheduleType().ordinal());
+        out.writeBoolean(rule.isEnabled());
+        out.writeLong(rule.getCreatedTime());
+        writeString(out, rule.getDescription());
+        writeMap(out, rule.getParameters());
+        writeString(out, rule.getDailyTime());
+        out.writeLong(toMask(rule.getWeekDays()));
+        writeString(out, rule.getWeeklyTime());
+        out.writeLong(toMask(rule.getMonthDays()));
+        writeString(out, rule.getMonthlyTime());
+        writeString(out, rule.getCronExpression());
+        writeNullableLong(out, rule.getStartTime());
+        writeNullableLong(out, rule.getEndTime());
+        Map<String, String> extras = new HashMap<>();
+        if (rule.getTimeZone() != null) {
+            extras.put(TIME_ZONE_KEY, rule.getTimeZone());
+        }
+        if (rule.getMisfirePolicy() != null) {
+            extras.put(MISFIRE_KEY, rule.getMisfirePolicy().name());
+        }
+        if (rule.getPriority() != null) {
+            extras.put(PRIORITY_KEY, rule.getPriority().name());
+        }
+        if (rule.getLeadSeconds() > 0) {
+            extras.put(LEAD_KEY, Integer.toString(rule.getLeadSeconds()));
+        }
+        if (rule.getSpreadMinutes() > 0) {
+            extras.put(SPREAD_KEY, Integer.toString(rule.getSpreadMinutes()));
+        }
+        writeMap(out, extras);
+    }
+
+    private static RecurringScheduleRule readRule(ByteBuffer in, String[] jobNames) {
+        String id = readId(in);
+        String jobName = jobNames[in.getInt()];
+        RecurringScheduleRule.ScheduleType type = RecurringScheduleRule.ScheduleType.values()[in.get()];
+        boolean enabled = in.get() != 0;
+        long createdTime = in.getLong();
+        String description = readString(in);
+        Map<String, String> parameters = readMap(in);
+        String dailyTime = readString(in);
+        Set<Integer> weekDays = fromMask(in.getLong());
+        String weeklyTime = readString(in);
+        Set<Integer> monthDays = fromMask(in.getLong());
+        String monthlyTime = readString(in);
+        String cronExpression = readString(in);
+        Long startTime = readNullableLong(in);
+        Long endTime = readNullableLong(in);
+        Map<String, String> extras = readMap(in);
+
+        RecurringScheduleRule rule = new RecurringScheduleRule(id, jobName, type, parameters, description,
+                enabled, createdTime);
+        rule.restoreSchedule(dailyTime, weekDays, weeklyTime, monthDays, monthlyTime, cronExpression);
+        rule.setStartTime(startTime);
+        rule.setEndTime(endTime);
+        try {
+            rule.setTimeZone(extras.get(TIME_ZONE_KEY));
+        } catch (IllegalArgumentException e) {
+            // 当前 JDK 不认识的时区，按系统时区处理
+        }
+        rule.setMisfirePolicy(readMisfirePolicy(extras));
+        rule.setPriority(readPriority(extras));
+        rule.setLeadSeconds(readLeadSeconds(extras));
+        String spread = extras.get(SPREAD_KEY);
+        if (spread != null) {
+            try {
+                rule.setSpreadMinutes(Integer.parseInt(spread));
+            } catch (IllegalArgumentException e) {
+                // 忽略损坏的扩展字段，按不分散处理
+            }
+        }
+        return rule;
+    }
+
+    private static MisfirePolicy readMisfirePolicy(Map<String, String> extras) {
+        String name = extras.get(MISFIRE_KEY);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return MisfirePolicy.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            // 更新版本写入的未知策略，使用默认策略
+            return null;
+        }
+    }
+
+    private static SchedulePriority readPriority(Map<String, String> extras) {
+        String name = extras.get(PRIORITY_KEY);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return SchedulePriority.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            // 更新版本写入的未知优先级，使用默认优先级
+            return null;
+        }
+    }
+
+    private static int readLeadSeconds(Map<String, String> extras) {
+        String lead = extras.get(LEAD_KEY);
+        if (lead == null) {
+            return 0;
+        }
+        try {
+            return ScheduledBuildTask.checkLeadSeconds(Integer.parseInt(lead));
+        } catch (IllegalArgumentException e) {
+            // 忽略损坏的扩展字段，按准时提交处理
+            return 0;
+        }
+    }
+
+    // ==================== 基本类型编码 ====================
+
+    private static void writeId(DataOutputStream out, String id) throws IOException {
+        UUID uuid = parseUuid(id);
+        if (uuid != null) {
+            out.writeByte(ID_UUID);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeByte(ID_STRING);
+            writeString(out, id);
+        }
+    }
+
+    private static String readId(ByteBuffer in) {
+        if (in.get() == ID_UUID) {
+            return new UUID(in.getLong(), in.getLong()).toString();
+        }
+        return readString(in);
+    }
+
+    private static void writeNullableId(DataOutputStream out, String id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) {
+            writeId(out, id);
+        }
+    }
+
+    private static String readNullableId(ByteBuffer in) {
+        return in.get() != 0 ? readId(in) : null;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // 仅在能原样还原时使用二进制形式
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        return length < 0 ? null : decode(in, length);
+    }
+
+    private static String decode(ByteBuffer in, int length) {
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(ByteBuffer in) {
+        int size = in.getInt();
+        Map<String, String> map = new HashMap<>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    /**
+     * 星期/日期集合编码为位图，-1 表示 null
+     */
+    private static long toMask(Set<Integer> values) {
+        if (values == null) {
+            return -1L;
+        }
+        long mask = 0;
+        for (int value : values) {
+            mask |= 1L << value;
+        }
+        return mask;
+    }
+
+    private static Set<Integer> fromMask(long mask) {
+        if (mask == -1L) {
+            return null;
+        }
+        Set<Integer> values = new HashSet<>();
+        for (int i = 0; i < 64; i++) {
+            if ((mask & (1L << i)) != 0) {
+                values.add(i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 基于 FileChannel 的缓冲读取
+     */
+    private static final class ChannelInput {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        ChannelInput(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /**
+         * 确保缓冲区中至少有 n 个可读字节，返回缓冲区本身
+         */
+        ByteBuffer buffer(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return buffer;
+            }
+            if (n > buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(n, buffer.capacity() * 2));
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < n) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("预约快照文件不完整");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * 读取一条完整记录，返回只包含该记录内容的视图
+         */
+        ByteBuffer record(int length) throws IOException {
+            ByteBuffer source = buffer(length);
+            ByteBuffer record = source.slice();
+            record.limit(length);
+            source.position(source.position() + length);
+            return record;
+        }
+    }
+}
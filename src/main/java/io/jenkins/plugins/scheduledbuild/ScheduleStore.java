@@ -0,0 +1,74 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import jenkins.util.SystemProperties;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 预约任务和周期性规则的持久化策略
+ * ScheduledBuildManager 在每次变更后通知存储，由具体实现决定写入方式
+ */
+interface ScheduleStore {
+
+    /**
+     * 选择存储方式的系统属性，可选值：xml（默认，整体写入全局配置文件）、journal（追加日志 + 定期快照）、
+     * sharded（按任务分片保存在任务目录中）
+     */
+    String STORAGE_PROPERTY = ScheduledBuildManager.class.getName() + ".storage";
+
+    /**
+     * 在全局配置加载之后调用，用存储中的增量数据补全内存状态
+     */
+    void recover(Map<String, ScheduledBuildTask> tasks, Map<String, RecurringScheduleRule> rules) throws IOException;
+
+    void taskChanged(ScheduledBuildTask task);
+
+    void taskRemoved(ScheduledBuildTask task);
+
+    void ruleChanged(RecurringScheduleRule rule);
+
+    void ruleRemoved(RecurringScheduleRule rule);
+
+    /**
+     * 任务重命名或移动后调用，此时相关预约和规则已逐个通知过 taskChanged/ruleChanged
+     */
+    default void jobRenamed(String oldName, String newName) {
+    }
+
+    /**
+     * 合并写入所用的写线程，用于读取写入统计；不经过 PersistenceWriter 的存储返回 null
+     */
+    default PersistenceWriter writer() {
+        return null;
+    }
+
+    /**
+     * 阻塞直到此前的所有变更都已写入磁盘
+     */
+    void flush();
+
+    /**
+     * 写入剩余变更并释放资源
+     */
+    void close();
+
+    /**
+     * 根据系统属性创建存储
+     */
+    static ScheduleStore create(ScheduledBuildManager manager) {
+        String type = SystemProperties.getString(STORAGE_PROPERTY, "xml");
+        Logger logger = Logger.getLogger(ScheduleStore.class.getName());
+        if ("journal".equalsIgnoreCase(type)) {
+            logger.info("使用追加日志存储预约任务");
+            return new JournalScheduleStore(manager);
+        }
+        if ("sharded".equalsIgnoreCase(type)) {
+            logger.info("使用任务分片存储预约任务");
+            return new ShardedScheduleStore(manager);
+        }
+        logger.info("使用全局配置文件存储预约任务");
+        return new XmlScheduleStore(manager);
+    }
+}
@@ -2,14 +2,20 @@ package io.jenkins.plugins.scheduledbuild;
 
 import hudson.Extension;
 import hudson.model.*;
+import jenkins.model.Jenkins;
 import jenkins.model.TransientActionFactory;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.verb.POST;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.Logger;
@@ -20,7 +26,7 @@ import java.util.logging.Logger;
  */
 public class ScheduledBuildAction implements Action {
     private static final Logger LOGGER = Logger.getLogger(ScheduledBuildAction.class.getName());
-    
+
     private final Job<?, ?> job;
 
     public ScheduledBuildAction(Job<?, ?> job) {
@@ -181,7 +187,9 @@ public class ScheduledBuildAction implements Action {
                 throw new IllegalStateException("ScheduledBuildManager 未初始化，请重启 Jenkins");
             }
             
-            ScheduledBuildTask task = manager.addScheduledBuild(job.getFullName(), timestamp, parameters, description);
+            MisfirePolicy misfirePolicy = MisfirePolicy.parse(req.getParameter("misfirePolicy"));
+            ScheduledBuildTask task = manager.addScheduledBuild(job.getFullName(), timestamp, parameters, description,
+                    misfirePolicy, parseLeadSeconds(req));
 
             LOGGER.info(String.format("用户 %s 为任务 %s 添加了预约构建: %s",
                     getCurrentUser(), job.getFullName(), task));
@@ -325,6 +333,164 @@ public class ScheduledBuildAction implements Action {
         }
     }
 
+    /**
+     * 批量预约
+     * 请求体为 JSON 数组，每项形如：
+     * <pre>
+     * {"action": "add", "scheduledTime": "2024-01-01T09:00" 或毫秒时间戳, "description": "...", "parameters": {"K": "V"}}
+     * {"action": "update", "taskId": "...", "scheduledTime": ..., "description": "...", "parameters": {...}}
+     * {"action": "cancel", "taskId": "..."}
+     * </pre>
+     * 整批要么全部生效要么全部不生效，返回每项的结果和总耗时。
+     */
+    @POST
+    public void doBatch(StaplerRequest req, StaplerResponse rsp) throws IOException, ServletException {
+        
+        checkPermission();
+
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager == null) {
+            throw new ServletException("ScheduledBuildManager 未初始化，请重启 Jenkins");
+        }
+
+        long start = System.currentTimeMillis();
+        JSONArray items;
+        try {
+            items = JSONArray.fromObject(readBody(req));
+        } catch (RuntimeException e) {
+            rsp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            writeJson(rsp, new JSONObject().element("applied", false).element("message", "请求体不是有效的 JSON 数组"));
+            return;
+        }
+
+        // 先解析所有项，解析失败的批次不交给管理器
+        List<ScheduleBatch.Operation> operations = new ArrayList<>(items.size());
+        String[] errors = new String[items.size()];
+        boolean valid = true;
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                operations.add(parseOperation(items.getJSONObject(i), manager));
+            } catch (ParseException | RuntimeException e) {
+                errors[i] = e.getMessage();
+                operations.add(null);
+                valid = false;
+            }
+        }
+
+        JSONArray results = new JSONArray();
+        boolean applied = false;
+        if (valid) {
+            ScheduleBatch.Result result = manager.applyBatch(operations);
+            applied = result.isApplied();
+            for (ScheduleBatch.ItemResult item : result.getItems()) {
+                results.element(new JSONObject()
+                        .element("index", item.getIndex())
+                        .element("success", item.isSuccess())
+                        .element("taskId", item.getTaskId())
+                        .element("message", item.getMessage()));
+            }
+        } else {
+            for (int i = 0; i < errors.length; i++) {
+                results.element(new JSONObject()
+                        .element("index", i)
+                        .element("success", false)
+                        .element("message", errors[i] != null ? errors[i] : "同一批次中的其他操作校验失败，未执行"));
+            }
+        }
+
+        LOGGER.info(String.format("用户 %s 为任务 %s 提交了 %d 项批量预约，%s",
+                getCurrentUser(), job.getFullName(), items.size(), applied ? "已生效" : "未生效"));
+        if (!applied) {
+            rsp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        }
+        writeJson(rsp, new JSONObject()
+                .element("applied", applied)
+                .element("elapsedMillis", System.currentTimeMillis() - start)
+                .element("results", results));
+    }
+
+    /**
+     * 解析批量请求中的单项，只允许操作当前任务的预约
+     */
+    private ScheduleBatch.Operation parseOperation(JSONObject item, ScheduledBuildManager manager)
+            throws ParseException {
+        String action = item.optString("action", "");
+        if ("add".equalsIgnoreCase(action)) {
+            return ScheduleBatch.Operation.add(job.getFullName(), parseTime(item.opt("scheduledTime")),
+                    withDefaults(parseParameters(item)), item.optString("description", null));
+        }
+
+        String taskId = item.optString("taskId", null);
+        ScheduledBuildTask task = taskId != null ? manager.getTask(taskId) : null;
+        if (task == null) {
+            throw new IllegalArgumentException("任务不存在: " + taskId);
+        }
+        if (!task.getJobName().equals(job.getFullName())) {
+            throw new IllegalArgumentException("预约不属于当前任务: " + taskId);
+        }
+        if ("update".equalsIgnoreCase(action)) {
+            return ScheduleBatch.Operation.update(taskId, parseTime(item.opt("scheduledTime")),
+                    withDefaults(parseParameters(item)), item.optString("description", null));
+        }
+        if ("cancel".equalsIgnoreCase(action)) {
+            return ScheduleBatch.Operation.cancel(taskId);
+        }
+        throw new IllegalArgumentException("不支持的操作: " + action);
+    }
+
+    /**
+     * 预约时间可以是毫秒时间戳，也可以是与表单相同的 yyyy-MM-dd'T'HH:mm 格式
+     */
+    private static long parseTime(Object value) throws ParseException {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null || value.toString().isEmpty()) {
+            throw new IllegalArgumentException("缺少预约时间");
+        }
+        return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm").parse(value.toString()).getTime();
+    }
+
+    private static Map<String, String> parseParameters(JSONObject item) {
+        Map<String, String> parameters = new HashMap<>();
+        JSONObject json = item.optJSONObject("parameters");
+        if (json != null && !json.isNullObject()) {
+            for (Object key : json.keySet()) {
+                parameters.put(key.toString(), String.valueOf(json.get(key.toString())));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * 未提供的任务参数使用默认值，与表单提交保持一致
+     */
+    private Map<String, String> withDefaults(Map<String, String> given) {
+        Map<String, String> parameters = new HashMap<>(given);
+        for (ParameterDefinition param : getJobParameters()) {
+            if (!parameters.containsKey(param.getName()) && param.getDefaultParameterValue() != null) {
+                parameters.put(param.getName(), param.getDefaultParameterValue().getValue().toString());
+            }
+        }
+        return parameters;
+    }
+
+    private static String readBody(StaplerRequest req) throws IOException {
+        StringBuilder body = new StringBuilder();
+        BufferedReader reader = req.getReader();
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            body.append(buffer, 0, n);
+        }
+        return body.toString();
+    }
+
+    static void writeJson(StaplerResponse rsp, JSONObject json) throws IOException {
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(json.toString());
+    }
+
     // ==================== 周期性规则 API ====================
 
     /**
@@ -337,81 +503,12 @@ public class ScheduledBuildAction implements Action {
         checkPermission();
 
         try {
-            // 获取基本参数
-            String scheduleType = req.getParameter("scheduleType");
-            String description = req.getParameter("recurringDescription");
-            
-            // 获取构建参数
-            Map<String, String> parameters = new HashMap<>();
-            for (ParameterDefinition param : getJobParameters()) {
-                String value = req.getParameter("recurring_param_" + param.getName());
-                if (value != null && !value.isEmpty()) {
-                    parameters.put(param.getName(), value);
-                } else if (param.getDefaultParameterValue() != null) {
-                    parameters.put(param.getName(), 
-                                 param.getDefaultParameterValue().getValue().toString());
-                }
-            }
-
             ScheduledBuildManager manager = ScheduledBuildManager.get();
             if (manager == null) {
                 throw new IllegalStateException("ScheduledBuildManager 未初始化，请重启 Jenkins");
             }
 
-            RecurringScheduleRule rule = null;
-            
-            switch (scheduleType) {
-                case "DAILY":
-                    String dailyTime = req.getParameter("dailyTime");
-                    rule = RecurringScheduleRule.createDaily(job.getFullName(), dailyTime, parameters, description);
-                    break;
-                    
-                case "WEEKLY":
-                    String weeklyTime = req.getParameter("weeklyTime");
-                    Set<Integer> weekDays = new HashSet<>();
-                    for (int i = 1; i <= 7; i++) {
-                        String dayParam = req.getParameter("weekDay" + i);
-                        if ("on".equals(dayParam) || "true".equals(dayParam)) {
-                            weekDays.add(i);
-                        }
-                    }
-                    if (weekDays.isEmpty()) {
-                        throw new IllegalArgumentException("请至少选择一个星期");
-                    }
-                    rule = RecurringScheduleRule.createWeekly(job.getFullName(), weekDays, weeklyTime, parameters, description);
-                    break;
-                    
-                case "MONTHLY":
-                    String monthlyTime = req.getParameter("monthlyTime");
-                    String monthDaysStr = req.getParameter("monthDays");
-                    Set<Integer> monthDays = new HashSet<>();
-                    if (monthDaysStr != null && !monthDaysStr.isEmpty()) {
-                        for (String day : monthDaysStr.split(",")) {
-                            try {
-                                int dayNum = Integer.parseInt(day.trim());
-                                if (dayNum >= 1 && dayNum <= 31) {
-                                    monthDays.add(dayNum);
-                                }
-                            } catch (NumberFormatException e) {
-                                // 忽略无效的日期
-                            }
-                        }
-                    }
-                    if (monthDays.isEmpty()) {
-                        throw new IllegalArgumentException("请至少选择一个日期");
-                    }
-                    rule = RecurringScheduleRule.createMonthly(job.getFullName(), monthDays, monthlyTime, parameters, description);
-                    break;
-                    
-                case "CRON":
-                    String cronExpression = req.getParameter("cronExpression");
-                    rule = RecurringScheduleRule.createCron(job.getFullName(), cronExpression, parameters, description);
-                    break;
-                    
-                default:
-                    throw new IllegalArgumentException("不支持的调度类型: " + scheduleType);
-            }
-
+            RecurringScheduleRule rule = parseRecurringRule(req);
             manager.addRecurringRule(rule);
 
             LOGGER.info(String.format("用户 %s 为任务 %s 添加了周期性规则: %s",
@@ -499,8 +596,6 @@ public class ScheduledBuildAction implements Action {
 
         try {
             String ruleId = req.getParameter("ruleId");
-            String scheduleType = req.getParameter("scheduleType");
-            String description = req.getParameter("recurringDescription");
             
             ScheduledBuildManager manager = ScheduledBuildManager.get();
             if (manager == null) {
@@ -512,76 +607,13 @@ public class ScheduledBuildAction implements Action {
             if (oldRule == null) {
                 throw new IllegalArgumentException("规则不存在: " + ruleId);
             }
-            
-            // 获取构建参数
-            Map<String, String> parameters = new HashMap<>();
-            for (ParameterDefinition param : getJobParameters()) {
-                String value = req.getParameter("recurring_param_" + param.getName());
-                if (value != null && !value.isEmpty()) {
-                    parameters.put(param.getName(), value);
-                } else if (param.getDefaultParameterValue() != null) {
-                    parameters.put(param.getName(), 
-                                 param.getDefaultParameterValue().getValue().toString());
-                }
-            }
 
-            RecurringScheduleRule newRule = null;
-            
-            switch (scheduleType) {
-                case "DAILY":
-                    String dailyTime = req.getParameter("dailyTime");
-                    newRule = RecurringScheduleRule.createDaily(job.getFullName(), dailyTime, parameters, description);
-                    break;
-                    
-                case "WEEKLY":
-                    String weeklyTime = req.getParameter("weeklyTime");
-                    Set<Integer> weekDays = new HashSet<>();
-                    for (int i = 1; i <= 7; i++) {
-                        String dayParam = req.getParameter("weekDay" + i);
-                        if ("on".equals(dayParam) || "true".equals(dayParam)) {
-                            weekDays.add(i);
-                        }
-                    }
-                    if (weekDays.isEmpty()) {
-                        throw new IllegalArgumentException("请至少选择一个星期");
-                    }
-                    newRule = RecurringScheduleRule.createWeekly(job.getFullName(), weekDays, weeklyTime, parameters, description);
-                    break;
-                    
-                case "MONTHLY":
-                    String monthlyTime = req.getParameter("monthlyTime");
-                    String monthDaysStr = req.getParameter("monthDays");
-                    Set<Integer> monthDays = new HashSet<>();
-                    if (monthDaysStr != null && !monthDaysStr.isEmpty()) {
-                        for (String day : monthDaysStr.split(",")) {
-                            try {
-                                int dayNum = Integer.parseInt(day.trim());
-                                if (dayNum >= 1 && dayNum <= 31) {
-                                    monthDays.add(dayNum);
-                                }
-                            } catch (NumberFormatException e) {
-                                // 忽略无效的日期
-                            }
-                        }
-                    }
-                    if (monthDays.isEmpty()) {
-                        throw new IllegalArgumentException("请至少选择一个日期");
-                    }
-                    newRule = RecurringScheduleRule.createMonthly(job.getFullName(), monthDays, monthlyTime, parameters, description);
-                    break;
-                    
-                case "CRON":
-                    String cronExpression = req.getParameter("cronExpression");
-                    newRule = RecurringScheduleRule.createCron(job.getFullName(), cronExpression, parameters, description);
-                    break;
-                    
-                default:
-                    throw new IllegalArgumentException("不支持的调度类型: " + scheduleType);
-            }
+            RecurringScheduleRule newRule = parseRecurringRule(req).replacing(oldRule);
 
-            // 删除旧规则并添加新规则
-            manager.removeRecurringRule(ruleId);
-            manager.addRecurringRule(newRule);
+            // 原地替换规则：已生成的任务按新配置重新生成
+            if (!manager.updateRecurringRule(newRule)) {
+                throw new IllegalArgumentException("规则不存在: " + ruleId);
+            }
 
             LOGGER.info(String.format("用户 %s 更新了周期性规则: %s -> %s",
                     getCurrentUser(), oldRule, newRule));
@@ -594,6 +626,169 @@ public class ScheduledBuildAction implements Action {
         }
     }
 
+    /**
+     * 从添加/编辑表单解析周期性规则：调度类型、时间、星期/日期、时区、描述和构建参数
+     */
+    private RecurringScheduleRule parseRecurringRule(StaplerRequest req) {
+        String scheduleType = req.getParameter("scheduleType");
+        String description = req.getParameter("recurringDescription");
+        
+        // 获取构建参数
+        Map<String, String> parameters = new HashMap<>();
+        for (ParameterDefinition param : getJobParameters()) {
+            String value = req.getParameter("recurring_param_" + param.getName());
+            if (value != null && !value.isEmpty()) {
+                parameters.put(param.getName(), value);
+            } else if (param.getDefaultParameterValue() != null) {
+                parameters.put(param.getName(), 
+                             param.getDefaultParameterValue().getValue().toString());
+            }
+        }
+
+        RecurringScheduleRule rule;
+        
+        switch (scheduleType != null ? scheduleType : "") {
+            case "DAILY":
+                rule = RecurringScheduleRule.createDaily(job.getFullName(),
+                        requireTime(req.getParameter("dailyTime")), parameters, description);
+                break;
+                
+            case "WEEKLY":
+                Set<Integer> weekDays = new HashSet<>();
+                for (int i = 1; i <= 7; i++) {
+                    String dayParam = req.getParameter("weekDay" + i);
+                    if ("on".equals(dayParam) || "true".equals(dayParam)) {
+                        weekDays.add(i);
+                    }
+                }
+                if (weekDays.isEmpty()) {
+                    throw new IllegalArgumentException("请至少选择一个星期");
+                }
+                rule = RecurringScheduleRule.createWeekly(job.getFullName(), weekDays,
+                        requireTime(req.getParameter("weeklyTime")), parameters, description);
+                break;
+                
+            case "MONTHLY":
+                String monthDaysStr = req.getParameter("monthDays");
+                Set<Integer> monthDays = new HashSet<>();
+                if (monthDaysStr != null && !monthDaysStr.isEmpty()) {
+                    for (String day : monthDaysStr.split(",")) {
+                        try {
+                            int dayNum = Integer.parseInt(day.trim());
+                            if (dayNum >= 1 && dayNum <= 31) {
+                                monthDays.add(dayNum);
+                            }
+                        } catch (NumberFormatException e) {
+                            // 忽略无效的日期
+                        }
+                    }
+                }
+                if (monthDays.isEmpty()) {
+                    throw new IllegalArgumentException("请至少选择一个日期");
+                }
+                rule = RecurringScheduleRule.createMonthly(job.getFullName(), monthDays,
+                        requireTime(req.getParameter("monthlyTime")), parameters, description);
+                break;
+                
+            case "CRON":
+                String cronExpression = requireCron(req.getParameter("cronExpression"));
+                rule = RecurringScheduleRule.createCron(job.getFullName(), cronExpression, parameters, description);
+                break;
+                
+            default:
+                throw new IllegalArgumentException("不支持的调度类型: " + scheduleType);
+        }
+
+        rule.setTimeZone(req.getParameter("timeZone"));
+        rule.setMisfirePolicy(MisfirePolicy.parse(req.getParameter("misfirePolicy")));
+        rule.setPriority(SchedulePriority.parse(req.getParameter("priority")));
+        rule.setLeadSeconds(parseLeadSeconds(req));
+        String spreadMinutes = req.getParameter("spreadMinutes");
+        if (spreadMinutes != null && !spreadMinutes.trim().isEmpty()) {
+            try {
+                rule.setSpreadMinutes(Integer.parseInt(spreadMinutes.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的分散窗口: " + spreadMinutes);
+            }
+        }
+        return rule;
+    }
+
+    /**
+     * 提前入队时间（秒），未填写为 0
+     */
+    private static int parseLeadSeconds(StaplerRequest req) {
+        String leadSeconds = req.getParameter("leadSeconds");
+        if (leadSeconds == null || leadSeconds.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            return ScheduledBuildTask.checkLeadSeconds(Integer.parseInt(leadSeconds.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的提前入队时间: " + leadSeconds);
+        }
+    }
+
+    /**
+     * 校验 "HH:mm" 格式的执行时间，避免保存之后才在计算时失败
+     */
+    private static String requireTime(String time) {
+        CompiledSchedule.parseMinuteOfDay(time);
+        return time.trim();
+    }
+
+    /**
+     * 校验 Cron 表达式
+     */
+    private static String requireCron(String expression) {
+        CronSchedule.parse(expression, null, java.time.ZoneId.systemDefault());
+        return expression.trim();
+    }
+
+    /**
+     * 可选的时区列表，用于规则表单的自动补全
+     */
+    public List<String> getTimeZoneIds() {
+        List<String> ids = new ArrayList<>(java.time.ZoneId.getAvailableZoneIds());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Jenkins 所在系统的默认时区
+     */
+    public String getDefaultTimeZone() {
+        return java.time.ZoneId.systemDefault().getId();
+    }
+
+    /**
+     * 可选的错过触发策略
+     */
+    public MisfirePolicy[] getMisfirePolicies() {
+        return MisfirePolicy.values();
+    }
+
+    /**
+     * 未选择策略时使用的默认策略
+     */
+    public MisfirePolicy getDefaultMisfirePolicy() {
+        return MisfirePolicy.defaultPolicy();
+    }
+
+    /**
+     * 可选的队列优先级
+     */
+    public SchedulePriority[] getPriorities() {
+        return SchedulePriority.values();
+    }
+
+    /**
+     * 未选择优先级时使用的默认优先级
+     */
+    public SchedulePriority getDefaultPriority() {
+        return SchedulePriority.defaultPriority();
+    }
+
     private void checkPermission() {
         job.checkPermission(Item.BUILD);
     }
@@ -0,0 +1,56 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+/**
+ * 监听任务的新建、重命名、移动和删除
+ * 维护预约插件的任务解析缓存，并让已有的预约和周期性规则跟随任务改名或随任务删除
+ */
+@Extension
+public class ScheduledBuildItemListener extends ItemListener {
+
+    @Override
+    public void onCreated(Item item) {
+        itemsAdded();
+    }
+
+    @Override
+    public void onCopied(Item src, Item item) {
+        itemsAdded();
+    }
+
+    @Override
+    public void onLoaded() {
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager != null) {
+            manager.getJobResolver().clear();
+        }
+    }
+
+    @Override
+    public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager != null) {
+            manager.getJobResolver().itemChanged(item, oldFullName);
+            manager.jobLocationChanged(oldFullName, newFullName);
+        }
+    }
+
+    @Override
+    public void onDeleted(Item item) {
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager != null) {
+            manager.getJobResolver().itemChanged(item, item.getFullName());
+            manager.jobDeleted(item.getFullName());
+        }
+    }
+
+    private static void itemsAdded() {
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager != null) {
+            manager.getJobResolver().itemsAdded();
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package io.jenkins.plugins.scheduledbuild;
 
 import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Terminator;
 import hudson.model.*;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import net.sf.json.JSONObject;
 import org.kohsuke.stapler.StaplerRequest;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -22,22 +28,80 @@ import java.util.stream.Collectors;
 @Extension
 public class ScheduledBuildManager extends GlobalConfiguration {
     private static final Logger LOGGER = Logger.getLogger(ScheduledBuildManager.class.getName());
+
+    // 分段锁的段数
+    static final int LOCK_STRIPES = 64;
+
+    /**
+     * 预约定时的前瞻窗口（小时）：只为窗口内到期的任务安排定时，更晚的任务由后台补充线程随窗口推进逐步安排。
+     * 0 表示不限制，启动时为所有待执行任务安排定时。
+     */
+    private static final long ARM_HORIZON_MILLIS = TimeUnit.HOURS.toMillis(SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".armHorizonHours", 0L));
+
+    /**
+     * 周期性规则的预生成窗口：每条规则至少生成接下来 N 次执行的任务，并覆盖未来若干小时内的全部执行。
+     * 默认只生成下一次。
+     */
+    private static final long RECURRING_LOOK_AHEAD_MILLIS = TimeUnit.HOURS.toMillis(SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".recurringLookAheadHours", 0L));
+    private static final int RECURRING_LOOK_AHEAD_COUNT = Math.max(1, SystemProperties.getInteger(
+            ScheduledBuildManager.class.getName() + ".recurringLookAheadCount", 1));
+    // 单条规则一次最多生成的任务数，避免窗口过大时生成海量任务
+    private static final int MAX_OCCURRENCES_PER_RULE = 1000;
+    // 统计预期负载时最多展开的规则执行次数
+    private static final int MAX_FORWARD_DEMAND_OCCURRENCES = 10000;
+
+    /**
+     * 错过触发时间的处理：迟到不超过阈值的任务直接触发，不视为错过；
+     * 其余按任务或规则的 MisfirePolicy 处理，需要补触发的任务按每分钟限额逐批触发（0 表示不限速）。
+     * 启动时周期性规则最多回溯补算这么多小时内错过的执行。
+     */
+    private static final long MISFIRE_THRESHOLD_MILLIS = TimeUnit.SECONDS.toMillis(SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".misfireThresholdSeconds", 60L));
+    private static final int MISFIRE_CATCH_UP_PER_MINUTE = SystemProperties.getInteger(
+            ScheduledBuildManager.class.getName() + ".misfireCatchUpPerMinute", 30);
+    private static final long MISFIRE_LOOK_BACK_MILLIS = TimeUnit.HOURS.toMillis(SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".misfireLookBackHours", 24L));
+    private static final MisfirePolicy DEFAULT_MISFIRE_POLICY = MisfirePolicy.defaultPolicy();
     
     // 使用单例模式，确保在任何情况下都能获取实例
     private static volatile ScheduledBuildManager instance;
     
     private final Map<String, ScheduledBuildTask> tasks = new ConcurrentHashMap<>();
     private final Map<String, RecurringScheduleRule> recurringRules = new ConcurrentHashMap<>();
+    // 二级索引，不序列化，在 load() 和 readResolve 中根据 tasks 重建
+    private transient volatile TaskIndex index = new TaskIndex();
+    // 按任务全名分段的锁，保护同一任务下预约和规则的变更
+    private transient StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    // 任务名称解析缓存，由 ScheduledBuildItemListener 维护
+    private transient JobResolver jobResolver = new JobResolver();
     // transient 避免序列化线程池，会在构造函数和 readResolve 中初始化
-    private transient ScheduledExecutorService scheduler;
+    private transient TaskDispatcher dispatcher;
     private transient ScheduledExecutorService recurringScheduler;
+    // 按下一次处理时间排队的周期性规则
+    private transient RecurringRuleProcessor ruleProcessor;
+    // 错过触发时间后等待补触发的任务
+    private transient MisfireCatchUp catchUp;
+    private transient AtomicLong misfireRecovered = new AtomicLong();
+    private transient AtomicLong misfireDropped = new AtomicLong();
+    // 触发前的并发上限和队列背压检查
+    private transient AdmissionController admission;
+    // 预约时间到构建开始的延迟，按是否提前入队分开统计
+    private transient StartLatencyStats startLatency = new StartLatencyStats();
+    private transient StartLatencyStats leadStartLatency = new StartLatencyStats();
+    private transient volatile ScheduleStore store;
+    // 已安排定时的时间上限，预约时间晚于此值的任务暂不安排；恢复完成前为 0
+    private transient volatile long armedUntil;
+    // 启动恢复完成后打开
+    private transient CountDownLatch recovered = new CountDownLatch(1);
 
     public ScheduledBuildManager() {
         instance = this;
         // 初始化调度器
         initScheduler();
         load();
-        // 启动时恢复所有未执行的任务
+        // 在后台恢复未执行的任务，不阻塞 Jenkins 的扩展初始化
         recoverPendingTasks();
         // 启动周期性规则处理器
         startRecurringScheduleProcessor();
@@ -48,25 +112,152 @@ public class ScheduledBuildManager extends GlobalConfiguration {
      * 初始化调度器
      */
     private void initScheduler() {
-        if (scheduler == null) {
-            scheduler = Executors.newScheduledThreadPool(5);
+        if (dispatcher == null) {
+            dispatcher = TaskDispatcher.create(this::dispatchDueTasks);
             LOGGER.info("任务调度器已初始化");
         }
         if (recurringScheduler == null) {
             recurringScheduler = Executors.newScheduledThreadPool(2);
             LOGGER.info("周期性规则调度器已初始化");
         }
+        if (catchUp == null) {
+            catchUp = new MisfireCatchUp(this::dispatchDueTasks, ScheduledBuildManager::isJobsLoaded,
+                    recurringScheduler, MISFIRE_CATCH_UP_PER_MINUTE);
+        }
+        if (admission == null) {
+            admission = AdmissionController.fromSystemProperties();
+        }
     }
     
     /**
-     * 反序列化后的处理，确保 scheduler 被重新初始化
+     * 反序列化后的处理，确保 dispatcher 被重新初始化
      */
     private Object readResolve() {
+        if (locks == null) {
+            locks = new StripedLocks(LOCK_STRIPES);
+        }
+        if (jobResolver == null) {
+            jobResolver = new JobResolver();
+        }
+        if (misfireRecovered == null) {
+            misfireRecovered = new AtomicLong();
+            misfireDropped = new AtomicLong();
+        }
+        if (startLatency == null) {
+            startLatency = new StartLatencyStats();
+            leadStartLatency = new StartLatencyStats();
+        }
+        rebuildIndex();
         initScheduler();
         startRecurringScheduleProcessor();
         return this;
     }
 
+    @Override
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        String format = "二进制快照";
+        if (!loadSnapshot()) {
+            super.load();
+            format = "XML";
+        }
+        LOGGER.info(String.format("从%s加载了 %d 个预约任务、%d 条周期性规则，耗时 %d 毫秒",
+                format, tasks.size(), recurringRules.size(), System.currentTimeMillis() - start));
+        try {
+            store().recover(tasks, recurringRules);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "恢复预约任务存储失败", e);
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * 二进制快照文件
+     */
+    static File snapshotFile() {
+        return new File(Jenkins.get().getRootDir(), ScheduledBuildManager.class.getName() + ".snapshot");
+    }
+
+    /**
+     * 快照存在且不比 XML 配置文件旧时，从快照加载
+     * @return 是否从快照加载成功
+     */
+    private boolean loadSnapshot() {
+        File snapshot = snapshotFile();
+        File xml = getConfigFile().getFile();
+        if (!snapshot.exists() || (xml.exists() && xml.lastModified() > snapshot.lastModified())) {
+            return false;
+        }
+        Map<String, ScheduledBuildTask> loadedTasks = new HashMap<>();
+        Map<String, RecurringScheduleRule> loadedRules = new HashMap<>();
+        try {
+            ScheduleSnapshot.read(snapshot, loadedTasks, loadedRules);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "读取预约快照失败，改为从 XML 加载: " + snapshot, e);
+            return false;
+        }
+        tasks.clear();
+        tasks.putAll(loadedTasks);
+        recurringRules.clear();
+        recurringRules.putAll(loadedRules);
+        return true;
+    }
+
+    /**
+     * 把当前所有任务和规则写入二进制快照
+     */
+    void writeSnapshot() throws IOException {
+        ScheduleSnapshot.write(snapshotFile(), new ArrayList<>(tasks.values()), new ArrayList<>(recurringRules.values()));
+    }
+
+    /**
+     * 持久化存储，首次使用时根据系统属性创建
+     */
+    private ScheduleStore store() {
+        ScheduleStore s = store;
+        if (s == null) {
+            synchronized (this) {
+                s = store;
+                if (s == null) {
+                    s = ScheduleStore.create(this);
+                    store = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Jenkins 关闭时写入剩余变更并停止调度线程
+     */
+    @Terminator
+    public static void shutdown() {
+        ScheduledBuildManager manager = instance;
+        if (manager == null) {
+            return;
+        }
+        if (manager.dispatcher != null) {
+            manager.dispatcher.shutdown();
+        }
+        if (manager.recurringScheduler != null) {
+            manager.recurringScheduler.shutdownNow();
+        }
+        if (manager.ruleProcessor != null) {
+            manager.ruleProcessor.shutdown();
+        }
+        if (manager.store != null) {
+            manager.store.close();
+        }
+        LOGGER.info("ScheduledBuildManager 已关闭");
+    }
+
+    /**
+     * 根据当前 tasks 重建二级索引
+     */
+    private void rebuildIndex() {
+        index = TaskIndex.of(tasks.values());
+    }
+
     public static ScheduledBuildManager get() {
         // 优先使用 GlobalConfiguration 方式
         ScheduledBuildManager manager = GlobalConfiguration.all().get(ScheduledBuildManager.class);
@@ -93,17 +284,41 @@ public class ScheduledBuildManager extends GlobalConfiguration {
     /**
      * 添加预约构建任务
      */
-    public synchronized ScheduledBuildTask addScheduledBuild(String jobName, long scheduledTime, 
-                                                             Map<String, String> parameters, 
-                                                             String description) {
+    public ScheduledBuildTask addScheduledBuild(String jobName, long scheduledTime, 
+                                                Map<String, String> parameters, 
+                                                String description) {
+        return addScheduledBuild(jobName, scheduledTime, parameters, description, null);
+    }
+
+    /**
+     * 添加预约构建任务，并指定错过触发时间后的处理策略（null 表示默认策略）
+     */
+    public ScheduledBuildTask addScheduledBuild(String jobName, long scheduledTime,
+                                                Map<String, String> parameters,
+                                                String description, MisfirePolicy misfirePolicy) {
+        return addScheduledBuild(jobName, scheduledTime, parameters, description, misfirePolicy, 0);
+    }
+
+    /**
+     * 添加预约构建任务，并指定错过触发时间后的处理策略和提前入队的秒数
+     * @throws IllegalArgumentException 提前入队时间超出范围
+     */
+    public ScheduledBuildTask addScheduledBuild(String jobName, long scheduledTime,
+                                                Map<String, String> parameters,
+                                                String description, MisfirePolicy misfirePolicy,
+                                                int leadSeconds) {
         ScheduledBuildTask task = new ScheduledBuildTask(jobName, scheduledTime, parameters, description);
-        tasks.put(task.getId(), task);
-        
-        // 调度任务
-        scheduleTask(task);
-        
-        // 持久化
-        save();
+        task.setMisfirePolicy(misfirePolicy);
+        task.setLeadSeconds(leadSeconds);
+        try (StripedLocks.Held ignored = locks.lock(jobName)) {
+            putTask(task);
+            
+            // 调度任务
+            scheduleTask(task);
+            
+            // 持久化
+            store().taskChanged(task);
+        }
         
         LOGGER.info("添加预约构建任务: " + task);
         return task;
@@ -112,13 +327,19 @@ public class ScheduledBuildManager extends GlobalConfiguration {
     /**
      * 取消预约构建任务
      */
-    public synchronized boolean cancelScheduledBuild(String taskId) {
+    public boolean cancelScheduledBuild(String taskId) {
         ScheduledBuildTask task = tasks.get(taskId);
-        if (task != null && task.isPending()) {
-            task.setCancelled(true);
-            save();
-            LOGGER.info("取消预约构建任务: " + task);
-            return true;
+        if (task == null) {
+            return false;
+        }
+        try (StripedLocks.Held ignored = locks.lock(task.getJobName())) {
+            if (tasks.get(taskId) == task && task.isPending() && task.cancel()) {
+                index.markDone(task);
+                cancelTimer(taskId);
+                store().taskChanged(task);
+                LOGGER.info("取消预约构建任务: " + task);
+                return true;
+            }
         }
         return false;
     }
@@ -126,13 +347,33 @@ public class ScheduledBuildManager extends GlobalConfiguration {
     /**
      * 更新预约构建任务
      */
-    public synchronized boolean updateScheduledBuild(String taskId, long newScheduledTime, 
-                                                    Map<String, String> newParameters, 
-                                                    String newDescription) {
+    public boolean updateScheduledBuild(String taskId, long newScheduledTime, 
+                                        Map<String, String> newParameters, 
+                                        String newDescription) {
         ScheduledBuildTask oldTask = tasks.get(taskId);
-        if (oldTask == null || !oldTask.isPending()) {
+        if (oldTask == null) {
             return false;
         }
+        try (StripedLocks.Held ignored = locks.lock(oldTask.getJobName())) {
+            // 加锁后重新确认，任务可能已被并发删除或替换；
+            // 先取消旧任务抢占执行权，与正在进行的触发之间只有一方能成功
+            if (tasks.get(taskId) != oldTask || !oldTask.isPending() || !oldTask.cancel()) {
+                return false;
+            }
+            ScheduledBuildTask newTask = replaceTask(oldTask, newScheduledTime, newParameters, newDescription);
+            
+            // 调度新任务
+            scheduleTask(newTask);
+        }
+        return true;
+    }
+
+    /**
+     * 用新任务替换已取消的旧任务，不安排定时
+     */
+    private ScheduledBuildTask replaceTask(ScheduledBuildTask oldTask, long newScheduledTime,
+                                           Map<String, String> newParameters, String newDescription) {
+        String taskId = oldTask.getId();
         
         // 创建新任务替换旧任务
         ScheduledBuildTask newTask = new ScheduledBuildTask(
@@ -142,23 +383,159 @@ public class ScheduledBuildManager extends GlobalConfiguration {
             newDescription
         );
         
-        // 如果是周期性规则生成的任务，保留关联
+        // 如果是周期性规则生成的任务，保留关联以及对应的执行时间
         if (oldTask.getRecurringRuleId() != null) {
             newTask.setRecurringRuleId(oldTask.getRecurringRuleId());
+            newTask.setOccurrenceTime(oldTask.getOccurrenceTime());
         }
+        newTask.setMisfirePolicy(oldTask.getMisfirePolicy());
+        newTask.setPriority(oldTask.getPriority());
+        newTask.setLeadSeconds(oldTask.getLeadSeconds());
         
-        // 替换任务
-        tasks.remove(taskId);
-        tasks.put(newTask.getId(), newTask);
-        
-        // 调度新任务
-        scheduleTask(newTask);
+        // 替换任务，旧任务的定时必须一并移除
+        dropTask(oldTask);
+        cancelTimer(taskId);
+        putTask(newTask);
         
         // 持久化
-        save();
+        store().taskRemoved(oldTask);
+        store().taskChanged(newTask);
         
         LOGGER.info(String.format("更新预约构建任务: %s -> %s", oldTask, newTask));
-        return true;
+        return newTask;
+    }
+
+    /**
+     * 批量新增/更新/取消预约
+     * 所有操作先在涉及任务的分段锁内统一校验，任一项失败则整批不生效；
+     * 全部通过后依次应用，最后统一安排定时并只做一次持久化。
+     */
+    public ScheduleBatch.Result applyBatch(List<ScheduleBatch.Operation> operations) {
+        long start = System.currentTimeMillis();
+        Set<String> jobNames = new HashSet<>();
+        for (ScheduleBatch.Operation op : operations) {
+            if (op.getType() == ScheduleBatch.Type.ADD) {
+                jobNames.add(op.getJobName());
+            } else {
+                ScheduledBuildTask task = op.getTaskId() != null ? tasks.get(op.getTaskId()) : null;
+                if (task != null) {
+                    jobNames.add(task.getJobName());
+                }
+            }
+        }
+
+        List<ScheduleBatch.ItemResult> results = new ArrayList<>(operations.size());
+        List<ScheduledBuildTask> toArm = new ArrayList<>();
+        boolean applied;
+        try (StripedLocks.Held ignored = locks.lockAll(jobNames)) {
+            String[] errors = validateBatch(operations);
+            applied = errors == null;
+            if (applied) {
+                for (int i = 0; i < operations.size(); i++) {
+                    results.add(applyOperation(i, operations.get(i), toArm));
+                }
+            } else {
+                for (int i = 0; i < operations.size(); i++) {
+                    String error = errors[i] != null ? errors[i] : "同一批次中的其他操作校验失败，未执行";
+                    results.add(new ScheduleBatch.ItemResult(i, false, operations.get(i).getTaskId(), error));
+                }
+            }
+        }
+
+        if (applied) {
+            scheduleTasks(toArm);
+            store().flush();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        LOGGER.info(String.format("批量预约操作 %d 项，%s，耗时 %d 毫秒",
+                operations.size(), applied ? "已生效" : "校验失败未生效", elapsed));
+        return new ScheduleBatch.Result(applied, results, elapsed);
+    }
+
+    /**
+     * 校验整批操作，调用方需持有涉及任务的分段锁
+     * 全部通过时，被更新或取消的任务已处于 CANCELLED 状态（抢占执行权），否则保持原状
+     * @return 每项的错误信息，全部通过时返回 null
+     */
+    private String[] validateBatch(List<ScheduleBatch.Operation> operations) {
+        long now = System.currentTimeMillis();
+        String[] errors = new String[operations.size()];
+        boolean valid = true;
+        Set<String> touched = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            ScheduleBatch.Operation op = operations.get(i);
+            if (op.getType() == ScheduleBatch.Type.ADD) {
+                if (op.getJobName() == null || op.getJobName().isEmpty()) {
+                    errors[i] = "缺少任务名称";
+                } else if (op.getScheduledTime() <= now) {
+                    errors[i] = "预约时间必须在未来";
+                }
+            } else {
+                ScheduledBuildTask task = op.getTaskId() != null ? tasks.get(op.getTaskId()) : null;
+                if (task == null) {
+                    errors[i] = "任务不存在: " + op.getTaskId();
+                } else if (!task.isPending()) {
+                    errors[i] = "只能修改待执行的预约任务";
+                } else if (!touched.add(task.getId())) {
+                    errors[i] = "同一批次中重复操作同一任务";
+                } else if (op.getType() == ScheduleBatch.Type.UPDATE && op.getScheduledTime() <= now) {
+                    errors[i] = "预约时间必须在未来";
+                }
+            }
+            valid &= errors[i] == null;
+        }
+        if (!valid) {
+            return errors;
+        }
+
+        // 触发线程不持有分段锁，最后逐个取消旧任务抢占执行权；失败说明任务恰好到期，撤销已取消的任务
+        List<ScheduledBuildTask> claimed = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            ScheduleBatch.Operation op = operations.get(i);
+            if (op.getType() == ScheduleBatch.Type.ADD) {
+                continue;
+            }
+            ScheduledBuildTask task = tasks.get(op.getTaskId());
+            if (!task.cancel()) {
+                errors[i] = "任务正在触发，无法修改";
+                for (ScheduledBuildTask t : claimed) {
+                    t.transition(ScheduledBuildTask.State.CANCELLED, ScheduledBuildTask.State.PENDING);
+                    scheduleTask(t);
+                }
+                return errors;
+            }
+            claimed.add(task);
+        }
+        return null;
+    }
+
+    /**
+     * 应用已通过校验的单项操作，新任务加入 toArm 等待统一安排定时
+     */
+    private ScheduleBatch.ItemResult applyOperation(int i, ScheduleBatch.Operation op, List<ScheduledBuildTask> toArm) {
+        switch (op.getType()) {
+            case ADD: {
+                ScheduledBuildTask task = new ScheduledBuildTask(op.getJobName(), op.getScheduledTime(),
+                        op.getParameters(), op.getDescription());
+                putTask(task);
+                store().taskChanged(task);
+                toArm.add(task);
+                return new ScheduleBatch.ItemResult(i, true, task.getId(), "已添加");
+            }
+            case UPDATE: {
+                ScheduledBuildTask newTask = replaceTask(tasks.get(op.getTaskId()), op.getScheduledTime(),
+                        op.getParameters(), op.getDescription());
+                toArm.add(newTask);
+                return new ScheduleBatch.ItemResult(i, true, newTask.getId(), "已更新");
+            }
+            default: {
+                ScheduledBuildTask task = tasks.get(op.getTaskId());
+                index.markDone(task);
+                cancelTimer(task.getId());
+                store().taskChanged(task);
+                return new ScheduleBatch.ItemResult(i, true, task.getId(), "已取消");
+            }
+        }
     }
 
     /**
@@ -179,331 +556,964 @@ public class ScheduledBuildManager extends GlobalConfiguration {
      * 获取指定任务的所有预约
      */
     public List<ScheduledBuildTask> getTasksForJob(String jobName) {
-        return tasks.values().stream()
-                .filter(task -> task.getJobName().equals(jobName))
-                .sorted(Comparator.comparingLong(ScheduledBuildTask::getScheduledTime))
-                .collect(Collectors.toList());
+        return index.tasksForJob(jobName);
     }
 
     /**
      * 获取待执行的任务
      */
     public List<ScheduledBuildTask> getPendingTasks(String jobName) {
-        return tasks.values().stream()
-                .filter(task -> task.getJobName().equals(jobName) && task.isPending())
-                .sorted(Comparator.comparingLong(ScheduledBuildTask::getScheduledTime))
-                .collect(Collectors.toList());
+        return index.pendingForJob(jobName);
     }
 
     /**
      * 删除任务
      */
-    public synchronized boolean removeTask(String taskId) {
-        ScheduledBuildTask task = tasks.remove(taskId);
-        if (task != null) {
-            save();
-            LOGGER.info("删除预约构建任务: " + task);
-            return true;
+    public boolean removeTask(String taskId) {
+        ScheduledBuildTask task = tasks.get(taskId);
+        if (task == null) {
+            return false;
         }
-        return false;
+        try (StripedLocks.Held ignored = locks.lock(task.getJobName())) {
+            if (tasks.get(taskId) != task) {
+                return false;
+            }
+            // 先抢占执行权，避免正在进行的触发在删除后仍然启动构建；已在触发中的任务由触发线程跳过持久化
+            task.cancel();
+            dropTask(task);
+            cancelTimer(taskId);
+            store().taskRemoved(task);
+        }
+        LOGGER.info("删除预约构建任务: " + task);
+        return true;
     }
 
     /**
      * 调度任务执行
      */
     private void scheduleTask(ScheduledBuildTask task) {
-        long delay = task.getScheduledTime() - System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        long delay = task.getFireTime() - now;
         if (delay <= 0) {
-            LOGGER.warning("任务已过期，不会被调度: " + task);
+            // 已过预约时间按错过处理；仍在提前入队的时间段内的任务不算错过，立即提交
+            handleMisfires(Collections.singletonList(task), now);
+            return;
+        }
+        if (task.getScheduledTime() > armedUntil) {
+            // 超出前瞻窗口（或恢复尚未完成），由恢复/补充线程在窗口推进时安排
+            LOGGER.fine(String.format("任务 %s 超出定时窗口，稍后安排", task.getId()));
             return;
         }
 
         // 确保调度器已初始化
         initScheduler();
-        scheduler.schedule(() -> executeTask(task), delay, TimeUnit.MILLISECONDS);
+        dispatcher.schedule(task);
         LOGGER.info(String.format("已调度任务 %s，将在 %d 毫秒后执行", task.getId(), delay));
     }
 
     /**
-     * 执行任务
+     * 批量安排定时，整批只调用一次分发器
      */
-    private void executeTask(ScheduledBuildTask task) {
-        synchronized (this) {
-            if (task.isCancelled()) {
-                LOGGER.info("任务已取消，跳过执行: " + task);
-                return;
-            }
-
-            if (task.isExecuted()) {
-                LOGGER.info("任务已执行，跳过: " + task);
-                return;
+    private void scheduleTasks(List<ScheduledBuildTask> batch) {
+        long now = System.currentTimeMillis();
+        long until = armedUntil;
+        List<ScheduledBuildTask> armed = new ArrayList<>(batch.size());
+        List<ScheduledBuildTask> due = new ArrayList<>();
+        for (ScheduledBuildTask task : batch) {
+            if (task.getFireTime() <= now) {
+                // 与 scheduleTask 相同：已过预约时间按错过处理，已进入提前入队时间段的立即提交
+                due.add(task);
+            } else if (task.getScheduledTime() <= until) {
+                armed.add(task);
             }
         }
-
-        // 关键修复：在 SYSTEM 权限上下文中执行，确保可以访问所有任务
-        // 这解决了在 ScheduledExecutorService 线程池中执行时无法访问 Jenkins 任务的问题
-        // 使用 ACL.as(SYSTEM) 确保有完整的系统权限
-        try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
-            executeTaskWithAuth(task);
+        if (!due.isEmpty()) {
+            handleMisfires(due, now);
+        }
+        if (armed.isEmpty()) {
+            return;
         }
+        initScheduler();
+        dispatcher.scheduleAll(armed);
+        LOGGER.info(String.format("批量调度了 %d 个任务", armed.size()));
     }
-    
+
     /**
-     * 在认证上下文中执行任务
+     * 登记任务并加入索引
      */
-    private void executeTaskWithAuth(ScheduledBuildTask task) {
-        try {
-            Jenkins jenkins = Jenkins.getInstanceOrNull();
-            if (jenkins == null) {
-                LOGGER.severe("Jenkins实例未找到");
-                return;
-            }
-
-            LOGGER.info(String.format("开始执行预约任务: %s，任务名称: %s", task.getId(), task.getJobName()));
-            
-            // 尝试多种方式查找任务，提高兼容性
-            Job<?, ?> job = findJob(jenkins, task.getJobName());
-            if (job == null) {
-                LOGGER.severe(String.format("找不到任务: %s (已尝试多种查找方式)", task.getJobName()));
-                return;
-            }
-            
-            LOGGER.info(String.format("找到任务: %s (类型: %s)", task.getJobName(), job.getClass().getSimpleName()));
-
-            // 准备构建参数
-            List<ParameterValue> parameterValues = task.toParameterValues();
-            ParametersAction parametersAction = null;
-            if (!parameterValues.isEmpty()) {
-                parametersAction = new ParametersAction(parameterValues);
-            }
-
-            // 触发构建
-            CauseAction causeAction = new CauseAction(new ScheduledBuildCause(task));
-            
-            List<Action> actions = new ArrayList<>();
-            actions.add(causeAction);
-            if (parametersAction != null) {
-                actions.add(parametersAction);
-            }
-
-            if (job instanceof hudson.model.Queue.Task) {
-                hudson.model.Queue.Item item = Jenkins.get().getQueue().schedule2((hudson.model.Queue.Task) job, 0, actions).getItem();
-                if (item != null) {
-                    LOGGER.info("成功触发预约构建: " + task);
-                    synchronized (this) {
-                        task.setExecuted(true);
-                        save();
-                    }
-                } else {
-                    LOGGER.warning("触发预约构建失败: " + task);
-                }
-            } else {
-                LOGGER.warning(String.format("任务 %s 不是 Queue.Task 类型，无法触发构建", task.getJobName()));
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "执行预约构建任务失败: " + task, e);
-        }
+    private void putTask(ScheduledBuildTask task) {
+        tasks.put(task.getId(), task);
+        index.add(task);
     }
 
     /**
-     * 恢复未完成的任务
+     * 移除任务及其索引
      */
-    private void recoverPendingTasks() {
-        LOGGER.info("开始恢复未完成的预约任务...");
-        int count = 0;
-        for (ScheduledBuildTask task : tasks.values()) {
-            if (task.isPending()) {
-                scheduleTask(task);
-                count++;
-            }
-        }
-        LOGGER.info(String.format("成功恢复 %d 个预约任务", count));
+    private void dropTask(ScheduledBuildTask task) {
+        tasks.remove(task.getId());
+        index.remove(task);
     }
 
     /**
-     * 清理已完成和已取消的任务（可选的维护操作）
+     * 移除任务尚未触发的定时，以及因准入控制被推迟的等待记录
      */
-    public synchronized int cleanupOldTasks(long olderThanMillis) {
-        long cutoffTime = System.currentTimeMillis() - olderThanMillis;
-        List<String> toRemove = new ArrayList<>();
-        
-        for (ScheduledBuildTask task : tasks.values()) {
-            if ((task.isExecuted() || task.isCancelled()) && task.getScheduledTime() < cutoffTime) {
-                toRemove.add(task.getId());
-            }
-        }
-        
-        for (String taskId : toRemove) {
-            tasks.remove(taskId);
+    private void cancelTimer(String taskId) {
+        if (dispatcher != null) {
+            dispatcher.cancel(taskId);
         }
-        
-        if (!toRemove.isEmpty()) {
-            save();
+        if (admission != null) {
+            admission.forget(taskId);
         }
-        
-        return toRemove.size();
     }
 
-    // ==================== 周期性规则管理 ====================
+    JobResolver getJobResolver() {
+        return jobResolver;
+    }
 
     /**
-     * 添加周期性规则
+     * 任务解析缓存的命中次数
      */
-    public synchronized RecurringScheduleRule addRecurringRule(RecurringScheduleRule rule) {
-        recurringRules.put(rule.getId(), rule);
-        save();
-        LOGGER.info("添加周期性规则: " + rule);
-        
-        // 立即为此规则生成第一个任务
-        generateTasksForRule(rule);
-        
-        return rule;
+    public long getJobCacheHitCount() {
+        return jobResolver.getHitCount();
     }
 
     /**
-     * 删除周期性规则
+     * 任务解析缓存的未命中次数
      */
-    public synchronized boolean removeRecurringRule(String ruleId) {
-        RecurringScheduleRule rule = recurringRules.remove(ruleId);
-        if (rule != null) {
-            // 可选：同时删除由该规则生成的待执行任务
-            cancelTasksForRule(ruleId);
-            save();
-            LOGGER.info("删除周期性规则: " + rule);
-            return true;
-        }
-        return false;
+    public long getJobCacheMissCount() {
+        return jobResolver.getMissCount();
     }
 
     /**
-     * 更新周期性规则
+     * 因缓存未命中而遍历全部任务的次数
      */
-    public synchronized boolean updateRecurringRule(RecurringScheduleRule rule) {
-        if (recurringRules.containsKey(rule.getId())) {
-            recurringRules.put(rule.getId(), rule);
-            save();
-            LOGGER.info("更新周期性规则: " + rule);
-            return true;
-        }
-        return false;
+    public long getJobCacheScanCount() {
+        return jobResolver.getScanCount();
     }
 
     /**
-     * 启用/禁用周期性规则
+     * 当前尚未触发的定时器数量，正常情况下应与待执行任务数一致
      */
-    public synchronized boolean toggleRecurringRule(String ruleId, boolean enabled) {
-        RecurringScheduleRule rule = recurringRules.get(ruleId);
-        if (rule != null) {
-            rule.setEnabled(enabled);
-            save();
-            LOGGER.info(String.format("%s周期性规则: %s", enabled ? "启用" : "禁用", rule));
-            
-            if (enabled) {
-                // 启用时生成任务
-                generateTasksForRule(rule);
-            } else {
-                // 禁用时取消待执行任务
-                cancelTasksForRule(ruleId);
-            }
-            return true;
-        }
-        return false;
+    public int getActiveTimerCount() {
+        return dispatcher != null ? dispatcher.getActiveTimerCount() : 0;
     }
 
     /**
-     * 获取周期性规则
+     * 分发器回调：执行一批同时到期的任务
+     * 先逐个把任务从 PENDING 切换到 DISPATCHING 认领执行权，认领失败说明任务已被取消或已由其他线程触发；
+     * 整个触发过程不持有任何管理器锁。
      */
-    public RecurringScheduleRule getRecurringRule(String ruleId) {
-        return recurringRules.get(ruleId);
+    private void dispatchDueTasks(List<ScheduledBuildTask> dueTasks) {
+        List<ScheduledBuildTask> claimed = new ArrayList<>(dueTasks.size());
+        for (ScheduledBuildTask task : dueTasks) {
+            if (task.transition(ScheduledBuildTask.State.PENDING, ScheduledBuildTask.State.DISPATCHING)) {
+                claimed.add(task);
+            } else {
+                admission.forget(task.getId());
+                LOGGER.info(String.format("任务状态为 %s，跳过执行: %s", task.getState(), task));
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        // 关键修复：在 SYSTEM 权限上下文中执行，确保可以访问所有任务
+        // 这解决了在 ScheduledExecutorService 线程池中执行时无法访问 Jenkins 任务的问题
+        // 使用 ACL.as(SYSTEM) 确保有完整的系统权限
+        Set<String> queued;
+        List<ScheduledBuildTask> deferred = new ArrayList<>();
+        try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
+            queued = submitToQueue(claimed, deferred);
+        }
+
+        // 被推迟的任务退回 PENDING，期间仍可取消，稍后重新认领
+        Set<String> deferredIds = new HashSet<>();
+        for (ScheduledBuildTask task : deferred) {
+            task.transition(ScheduledBuildTask.State.DISPATCHING, ScheduledBuildTask.State.PENDING);
+            deferredIds.add(task.getId());
+        }
+        for (ScheduledBuildTask task : claimed) {
+            if (deferredIds.contains(task.getId())) {
+                continue;
+            }
+            admission.forget(task.getId());
+            task.transition(ScheduledBuildTask.State.DISPATCHING, queued.contains(task.getId())
+                    ? ScheduledBuildTask.State.QUEUED : ScheduledBuildTask.State.FAILED);
+            index.markDone(task);
+            // 触发期间被删除或替换的任务不再写回，否则会在重启后重新出现
+            if (tasks.get(task.getId()) == task) {
+                store().taskChanged(task);
+            }
+        }
+        if (!deferred.isEmpty()) {
+            recurringScheduler.schedule(() -> retryDeferred(deferred),
+                    admission.getRetryMillis(), TimeUnit.MILLISECONDS);
+        }
+        LOGGER.info(String.format("触发 %d 个到期预约任务，成功 %d 个，推迟 %d 个，耗时 %d 毫秒",
+                claimed.size(), queued.size(), deferred.size(), System.currentTimeMillis() - start));
     }
 
-    /**
-     * 获取所有周期性规则
-     */
-    public List<RecurringScheduleRule> getAllRecurringRules() {
-        return new ArrayList<>(recurringRules.values());
+    private void retryDeferred(List<ScheduledBuildTask> deferred) {
+        try {
+            dispatchDueTasks(deferred);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "重试被推迟的预约任务失败", e);
+        }
     }
 
     /**
-     * 获取指定任务的周期性规则
+     * 把一批任务提交到构建队列
+     * 每个任务名称只查找一次，所有提交在同一次 Queue.withLock 中完成，避免逐个竞争队列锁。
+     * 未通过准入检查的任务不提交，放入 deferred 由调用方稍后重试。
+     * @return 成功入队的预约任务ID
      */
-    public List<RecurringScheduleRule> getRecurringRulesForJob(String jobName) {
-        return recurringRules.values().stream()
-                .filter(rule -> rule.getJobName().equals(jobName))
-                .sorted(Comparator.comparingLong(RecurringScheduleRule::getCreatedTime))
-                .collect(Collectors.toList());
+    private Set<String> submitToQueue(List<ScheduledBuildTask> batch, List<ScheduledBuildTask> deferred) {
+        Set<String> queued = new HashSet<>();
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            LOGGER.severe("Jenkins实例未找到");
+            return queued;
+        }
+
+        Map<String, Job<?, ?>> jobs = new HashMap<>();
+        List<ScheduledBuildTask> ready = new ArrayList<>(batch.size());
+        List<List<Action>> readyActions = new ArrayList<>(batch.size());
+        for (ScheduledBuildTask task : batch) {
+            try {
+                LOGGER.fine(String.format("开始执行预约任务: %s，任务名称: %s", task.getId(), task.getJobName()));
+
+                if (!jobs.containsKey(task.getJobName())) {
+                    jobs.put(task.getJobName(), jobResolver.resolve(jenkins, task.getJobName()));
+                }
+                Job<?, ?> job = jobs.get(task.getJobName());
+                if (job == null) {
+                    LOGGER.warning(String.format("找不到任务 %s，跳过预约: %s", task.getJobName(), task.getId()));
+                    continue;
+                }
+                if (!(job instanceof hudson.model.Queue.Task)) {
+                    LOGGER.warning(String.format("任务 %s 不是 Queue.Task 类型，无法触发构建", task.getJobName()));
+                    continue;
+                }
+                ready.add(task);
+                readyActions.add(buildActions(task));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "执行预约构建任务失败: " + task, e);
+            }
+        }
+        if (ready.isEmpty()) {
+            return queued;
+        }
+
+        hudson.model.Queue queue = jenkins.getQueue();
+        hudson.model.Queue.withLock(() -> {
+            long now = System.currentTimeMillis();
+            AdmissionController.Snapshot counts = admission.isEnabled() ? admission.snapshot(jenkins) : null;
+            for (int i = 0; i < ready.size(); i++) {
+                ScheduledBuildTask task = ready.get(i);
+                try {
+                    Job<?, ?> job = jobs.get(task.getJobName());
+                    hudson.model.Queue.Task queueTask = (hudson.model.Queue.Task) job;
+                    if (counts != null && !admission.tryAdmit(counts, task, job.getFullName(),
+                            queueTask.getAssignedLabel(), now)) {
+                        deferred.add(task);
+                        continue;
+                    }
+                    hudson.model.Queue.Item item = queue.schedule2(queueTask, quietPeriodSeconds(task, now),
+                            readyActions.get(i)).getItem();
+                    if (item != null) {
+                        queued.add(task.getId());
+                        LOGGER.info("成功触发预约构建: " + task);
+                    } else {
+                        LOGGER.warning("触发预约构建失败: " + task);
+                    }
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "执行预约构建任务失败: " + task, e);
+                }
+            }
+        });
+        return queued;
     }
 
     /**
-     * 启动周期性规则处理器
-     * 每小时检查一次，为周期性规则生成新任务
+     * 提前入队的任务带上静默期，使其恰好在预约时间结束；准时或迟到的任务为 0
      */
-    private void startRecurringScheduleProcessor() {
-        if (recurringScheduler == null) {
-            LOGGER.warning("周期性规则调度器未初始化");
-            return;
+    private static int quietPeriodSeconds(ScheduledBuildTask task, long now) {
+        long remaining = task.getScheduledTime() - now;
+        return remaining > 0 ? (int) TimeUnit.MILLISECONDS.toSeconds(remaining + 999) : 0;
+    }
+
+    /**
+     * 构建触发原因和参数
+     */
+    private static List<Action> buildActions(ScheduledBuildTask task) {
+        List<Action> actions = new ArrayList<>();
+        actions.add(new CauseAction(new ScheduledBuildCause(task)));
+        List<ParameterValue> parameterValues = task.toParameterValues();
+        if (!parameterValues.isEmpty()) {
+            actions.add(new ParametersAction(parameterValues));
         }
-        
-        // 每小时检查一次
-        recurringScheduler.scheduleAtFixedRate(() -> {
+        return actions;
+    }
+
+    /**
+     * 恢复未完成的任务
+     */
+    private void recoverPendingTasks() {
+        recurringScheduler.execute(() -> {
             try {
-                processRecurringRules();
+                LOGGER.info("开始恢复未完成的预约任务...");
+                long start = System.currentTimeMillis();
+                recoverMisfires(start);
+                int count = extendArmedWindow(start);
+                LOGGER.info(String.format("成功恢复 %d 个预约任务，耗时 %d 毫秒", count, System.currentTimeMillis() - start));
+
+                if (ARM_HORIZON_MILLIS > 0) {
+                    long interval = Math.max(TimeUnit.MINUTES.toMillis(1), ARM_HORIZON_MILLIS / 4);
+                    recurringScheduler.scheduleWithFixedDelay(this::refillArmedWindow,
+                            interval, interval, TimeUnit.MILLISECONDS);
+                }
             } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "处理周期性规则失败", e);
+                LOGGER.log(Level.SEVERE, "恢复预约任务失败", e);
+            } finally {
+                recovered.countDown();
+            }
+        });
+    }
+
+    /**
+     * 把定时窗口推进到 now + 前瞻窗口，并为新进入窗口的待执行任务安排定时
+     * 先发布新的窗口上限再遍历索引：并发新增的任务要么看到新上限自行安排，要么被这里的遍历覆盖，
+     * 重复安排对分发器是幂等的。
+     * @return 本次安排的任务数
+     */
+    private int extendArmedWindow(long now) {
+        long from = Math.max(armedUntil, now);
+        long until = ARM_HORIZON_MILLIS > 0 ? now + ARM_HORIZON_MILLIS : Long.MAX_VALUE;
+        armedUntil = until;
+        int count = 0;
+        for (ScheduledBuildTask task : index.pendingBetween(from, until)) {
+            scheduleTask(task);
+            count++;
+        }
+        return count;
+    }
+
+    private void refillArmedWindow() {
+        try {
+            int count = extendArmedWindow(System.currentTimeMillis());
+            if (count > 0) {
+                LOGGER.info(String.format("定时窗口推进，新安排了 %d 个预约任务", count));
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "推进定时窗口失败", e);
+        }
+    }
+
+    // ==================== 错过触发 ====================
+
+    /**
+     * 启动时处理停机期间错过的任务
+     * 周期性规则先补齐最后一次已生成的执行之后、当前时间之前没有生成的执行（最多回溯 misfireLookBackHours），
+     * 然后与所有已到期仍未触发的任务一起按策略处理。
+     */
+    private void recoverMisfires(long now) {
+        Map<String, Long> lastOccurrence = new HashMap<>();
+        for (ScheduledBuildTask task : tasks.values()) {
+            Long occurrence = task.getOccurrenceTime();
+            if (task.getRecurringRuleId() != null && occurrence != null && occurrence <= now) {
+                lastOccurrence.merge(task.getRecurringRuleId(), occurrence, Math::max);
+            }
+        }
+        for (RecurringScheduleRule rule : recurringRules.values()) {
+            if (rule.isEnabled()) {
+                try (StripedLocks.Held ignored = locks.lock(rule.getJobName())) {
+                    Long last = lastOccurrence.get(rule.getId());
+                    materializeMissedOccurrences(rule, Math.max(now - MISFIRE_LOOK_BACK_MILLIS,
+                            last != null ? last : rule.getCreatedTime()), now);
+                }
+            }
+        }
+
+        List<ScheduledBuildTask> missed = index.pendingUpTo(now);
+        if (!missed.isEmpty()) {
+            handleMisfires(missed, now);
+        }
+    }
+
+    /**
+     * 为规则生成 (from, now] 范围内错过的执行，调用方需持有规则所属任务的分段锁
+     * SKIP 只计数不生成；FIRE_ONCE 只生成最近的一次；FIRE_ALL 全部生成（最多 MAX_OCCURRENCES_PER_RULE 次）。
+     */
+    private void materializeMissedOccurrences(RecurringScheduleRule rule, long from, long now) {
+        MisfirePolicy policy = misfirePolicyOf(rule);
+        List<Long> times = new ArrayList<>();
+        int skipped = 0;
+        PrimitiveIterator.OfLong occurrences = rule.occurrences(from, now);
+        while (occurrences.hasNext()) {
+            long time = occurrences.nextLong();
+            if (index.occurrence(rule.getId(), time) != null) {
+                continue;
+            }
+            if (policy == MisfirePolicy.FIRE_ALL && times.size() < MAX_OCCURRENCES_PER_RULE) {
+                times.add(time);
+            } else if (policy == MisfirePolicy.FIRE_ONCE) {
+                if (!times.isEmpty()) {
+                    times.set(0, time);
+                    skipped++;
+                } else {
+                    times.add(time);
+                }
+            } else {
+                skipped++;
+            }
+        }
+
+        String description = String.format("[周期性] %s - %s",
+                rule.getScheduleDescription(),
+                rule.getDescription() != null ? rule.getDescription() : "");
+        for (long time : times) {
+            ScheduledBuildTask task = new ScheduledBuildTask(rule.getJobName(), time, rule.getParameters(),
+                    description, rule.getId());
+            task.setMisfirePolicy(rule.getMisfirePolicy());
+            task.setPriority(rule.getPriority());
+            task.setLeadSeconds(rule.getLeadSeconds());
+            putTask(task);
+            store().taskChanged(task);
+        }
+        if (skipped > 0) {
+            misfireDropped.addAndGet(skipped);
+        }
+        if (!times.isEmpty() || skipped > 0) {
+            LOGGER.info(String.format("周期性规则 %s 在停机期间错过 %d 次执行，按 %s 补生成 %d 个任务",
+                    rule.getId(), times.size() + skipped, policy, times.size()));
+        }
+    }
+
+    /**
+     * 按策略处理已错过触发时间的任务
+     * 迟到不超过阈值的直接触发；同一规则 FIRE_ONCE 的任务只补触发最晚的一个；
+     * 其余需要补触发的任务进入限速队列，不补触发的记为 MISSED。
+     */
+    private void handleMisfires(List<ScheduledBuildTask> missed, long now) {
+        List<ScheduledBuildTask> late = new ArrayList<>();
+        List<ScheduledBuildTask> fire = new ArrayList<>();
+        Map<String, ScheduledBuildTask> latestPerRule = new HashMap<>();
+        for (ScheduledBuildTask task : missed) {
+            if (task.getScheduledTime() > now - MISFIRE_THRESHOLD_MILLIS) {
+                late.add(task);
+                continue;
+            }
+            MisfirePolicy policy = misfirePolicyOf(task);
+            if (policy == MisfirePolicy.SKIP) {
+                markMissed(task);
+            } else if (policy == MisfirePolicy.FIRE_ONCE && task.getRecurringRuleId() != null) {
+                ScheduledBuildTask previous = latestPerRule.get(task.getRecurringRuleId());
+                if (previous == null || previous.getScheduledTime() < task.getScheduledTime()) {
+                    latestPerRule.put(task.getRecurringRuleId(), task);
+                    task = previous;
+                }
+                if (task != null) {
+                    markMissed(task);
+                }
+            } else {
+                fire.add(task);
+            }
+        }
+        fire.addAll(latestPerRule.values());
+        fire.sort(Comparator.comparingLong(ScheduledBuildTask::getScheduledTime));
+
+        initScheduler();
+        catchUp.submitNow(late);
+        if (!fire.isEmpty()) {
+            catchUp.submit(fire);
+            misfireRecovered.addAndGet(fire.size());
+            LOGGER.info(String.format("%d 个错过触发时间的预约任务加入补触发队列", fire.size()));
+        }
+    }
+
+    /**
+     * 错过触发时间且不再补触发
+     */
+    private void markMissed(ScheduledBuildTask task) {
+        if (task.transition(ScheduledBuildTask.State.PENDING, ScheduledBuildTask.State.MISSED)) {
+            index.markDone(task);
+            cancelTimer(task.getId());
+            store().taskChanged(task);
+            misfireDropped.incrementAndGet();
+            LOGGER.info("任务已错过触发时间，不再补触发: " + task);
+        }
+    }
+
+    /**
+     * Jenkins 是否已加载完任务，此前补触发会因找不到任务而失败
+     */
+    private static boolean isJobsLoaded() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null && jenkins.getInitLevel() != null
+                && jenkins.getInitLevel().compareTo(InitMilestone.JOB_LOADED) >= 0;
+    }
+
+    private MisfirePolicy misfirePolicyOf(ScheduledBuildTask task) {
+        RecurringScheduleRule rule = task.getRecurringRuleId() != null ? recurringRules.get(task.getRecurringRuleId()) : null;
+        if (rule != null) {
+            return misfirePolicyOf(rule);
+        }
+        return task.getMisfirePolicy() != null ? task.getMisfirePolicy() : DEFAULT_MISFIRE_POLICY;
+    }
+
+    private static MisfirePolicy misfirePolicyOf(RecurringScheduleRule rule) {
+        return rule.getMisfirePolicy() != null ? rule.getMisfirePolicy() : DEFAULT_MISFIRE_POLICY;
+    }
+
+    /**
+     * 错过触发时间后被补触发（包括排队中）的任务数
+     */
+    public long getMisfireRecoveredCount() {
+        return misfireRecovered.get();
+    }
+
+    /**
+     * 错过触发时间且按策略放弃的执行次数
+     */
+    public long getMisfireDroppedCount() {
+        return misfireDropped.get();
+    }
+
+    /**
+     * 补触发队列中尚未触发的任务数
+     */
+    public int getMisfireBacklog() {
+        return catchUp != null ? catchUp.size() : 0;
+    }
+
+    /**
+     * 因并发上限或队列背压被推迟过的任务数
+     */
+    public long getAdmissionDeferredCount() {
+        return admission != null ? admission.getDeferredCount() : 0;
+    }
+
+    /**
+     * 当前正在等待准入的任务数
+     */
+    public int getAdmissionBacklog() {
+        return admission != null ? admission.getDeferredBacklog() : 0;
+    }
+
+    /**
+     * 因超过最长推迟时间而不再等待、直接入队的次数
+     */
+    public long getAdmissionForcedCount() {
+        return admission != null ? admission.getForcedCount() : 0;
+    }
+
+    /**
+     * 被推迟任务的平均等待时间（毫秒）
+     */
+    public long getAdmissionAverageWaitMillis() {
+        return admission != null ? admission.getAverageWaitMillis() : 0;
+    }
+
+    /**
+     * 被推迟任务的最长等待时间（毫秒）
+     */
+    public long getAdmissionMaxWaitMillis() {
+        return admission != null ? admission.getMaxWaitMillis() : 0;
+    }
+
+    /**
+     * 合并写入的持久化次数；追加日志存储不经过合并写入，始终为 0
+     */
+    public long getPersistenceWriteCount() {
+        PersistenceWriter writer = persistenceWriter();
+        return writer != null ? writer.getWriteCount() : 0;
+    }
+
+    /**
+     * 所有持久化写入合并的变更总数，与写入次数之比即平均每次写入合并的变更数
+     */
+    public long getPersistenceAbsorbedTotal() {
+        PersistenceWriter writer = persistenceWriter();
+        return writer != null ? writer.getAbsorbedTotal() : 0;
+    }
+
+    /**
+     * 最近一次持久化写入合并的变更数
+     */
+    public int getPersistenceLastAbsorbed() {
+        PersistenceWriter writer = persistenceWriter();
+        return writer != null ? writer.getLastAbsorbed() : 0;
+    }
+
+    private PersistenceWriter persistenceWriter() {
+        ScheduleStore s = store;
+        return s != null ? s.writer() : null;
+    }
+
+    /**
+     * 记录预约构建从预约时间到开始执行的延迟，由 ScheduledBuildRunListener 调用
+     */
+    void recordStartLatency(Run<?, ?> run, ScheduledBuildCause cause, long latencyMillis) {
+        (cause.getLeadSeconds() > 0 ? leadStartLatency : startLatency).record(latencyMillis);
+        LOGGER.fine(String.format("预约构建 %s 在预约时间后 %d 毫秒开始执行（提前入队 %d 秒）",
+                run.getFullDisplayName(), latencyMillis, cause.getLeadSeconds()));
+    }
+
+    /**
+     * 未提前入队的预约构建，从预约时间到开始执行的延迟
+     */
+    public StartLatencyStats getStartLatency() {
+        return startLatency;
+    }
+
+    /**
+     * 提前入队的预约构建，从预约时间到开始执行的延迟
+     */
+    public StartLatencyStats getLeadStartLatency() {
+        return leadStartLatency;
+    }
+
+    /**
+     * 启动恢复是否已完成
+     */
+    public boolean isReady() {
+        return recovered == null || recovered.getCount() == 0;
+    }
+
+    /**
+     * 等待启动恢复完成
+     * @return 是否在超时前完成
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        return recovered == null || recovered.await(timeout, unit);
+    }
+
+    private static boolean isFinished(ScheduledBuildTask task) {
+        return task.isExecuted() || task.isCancelled() || task.isFailed() || task.isMissed();
+    }
+
+    /**
+     * 清理已完成、已取消和触发失败的任务（可选的维护操作）
+     */
+    public int cleanupOldTasks(long olderThanMillis) {
+        long cutoffTime = System.currentTimeMillis() - olderThanMillis;
+        List<ScheduledBuildTask> toRemove = new ArrayList<>();
+        
+        for (ScheduledBuildTask task : tasks.values()) {
+            if (isFinished(task) && task.getScheduledTime() < cutoffTime) {
+                toRemove.add(task);
             }
-        }, 1, 60, TimeUnit.MINUTES);
+        }
+        if (toRemove.isEmpty()) {
+            return 0;
+        }
         
-        LOGGER.info("周期性规则处理器已启动，每小时检查一次");
+        // 涉及多个任务，按分段顺序一次性锁定
+        Set<String> jobNames = toRemove.stream().map(ScheduledBuildTask::getJobName).collect(Collectors.toSet());
+        int removed = 0;
+        try (StripedLocks.Held ignored = locks.lockAll(jobNames)) {
+            for (ScheduledBuildTask task : toRemove) {
+                if (tasks.get(task.getId()) == task) {
+                    dropTask(task);
+                    store().taskRemoved(task);
+                    removed++;
+                }
+            }
+        }
+        
+        return removed;
     }
 
+    // ==================== 周期性规则管理 ====================
+
     /**
-     * 处理所有周期性规则，生成新任务
+     * 添加周期性规则
      */
-    private void processRecurringRules() {
-        LOGGER.info("开始处理周期性规则...");
-        int generated = 0;
+    public RecurringScheduleRule addRecurringRule(RecurringScheduleRule rule) {
+        try (StripedLocks.Held ignored = locks.lock(rule.getJobName())) {
+            recurringRules.put(rule.getId(), rule);
+            store().ruleChanged(rule);
+            LOGGER.info("添加周期性规则: " + rule);
+            
+            // 立即为此规则生成第一个任务
+            generateTasksForRule(rule);
+        }
         
+        return rule;
+    }
+
+    /**
+     * 删除周期性规则
+     */
+    public boolean removeRecurringRule(String ruleId) {
+        RecurringScheduleRule rule = recurringRules.get(ruleId);
+        if (rule == null) {
+            return false;
+        }
+        try (StripedLocks.Held ignored = locks.lock(rule.getJobName())) {
+            if (!recurringRules.remove(ruleId, rule)) {
+                return false;
+            }
+            // 可选：同时删除由该规则生成的待执行任务
+            cancelTasksForRule(ruleId);
+            unscheduleRule(ruleId);
+            store().ruleRemoved(rule);
+        }
+        LOGGER.info("删除周期性规则: " + rule);
+        return true;
+    }
+
+    /**
+     * 更新周期性规则
+     */
+    public boolean updateRecurringRule(RecurringScheduleRule rule) {
+        try (StripedLocks.Held ignored = locks.lock(rule.getJobName())) {
+            if (recurringRules.replace(rule.getId(), rule) == null) {
+                return false;
+            }
+            store().ruleChanged(rule);
+            // 已预生成的任务按旧配置计算，全部取消后按新的配置重新生成
+            cancelTasksForRule(rule.getId());
+            if (rule.isEnabled()) {
+                generateTasksForRule(rule);
+            } else {
+                unscheduleRule(rule.getId());
+            }
+        }
+        LOGGER.info("更新周期性规则: " + rule);
+        return true;
+    }
+
+    /**
+     * 启用/禁用周期性规则
+     */
+    public boolean toggleRecurringRule(String ruleId, boolean enabled) {
+        RecurringScheduleRule rule = recurringRules.get(ruleId);
+        if (rule == null) {
+            return false;
+        }
+        try (StripedLocks.Held ignored = locks.lock(rule.getJobName())) {
+            if (recurringRules.get(ruleId) != rule) {
+                return false;
+            }
+            rule.setEnabled(enabled);
+            store().ruleChanged(rule);
+            LOGGER.info(String.format("%s周期性规则: %s", enabled ? "启用" : "禁用", rule));
+            
+            if (enabled) {
+                // 启用时生成任务
+                generateTasksForRule(rule);
+            } else {
+                // 禁用时取消待执行任务
+                cancelTasksForRule(ruleId);
+                unscheduleRule(ruleId);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 获取周期性规则
+     */
+    public RecurringScheduleRule getRecurringRule(String ruleId) {
+        return recurringRules.get(ruleId);
+    }
+
+    /**
+     * 获取所有周期性规则
+     */
+    public List<RecurringScheduleRule> getAllRecurringRules() {
+        return new ArrayList<>(recurringRules.values());
+    }
+
+    /**
+     * 获取指定任务的周期性规则
+     */
+    public List<RecurringScheduleRule> getRecurringRulesForJob(String jobName) {
+        return recurringRules.values().stream()
+                .filter(rule -> rule.getJobName().equals(jobName))
+                .sorted(Comparator.comparingLong(RecurringScheduleRule::getCreatedTime))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 所有启用的周期性规则在 (from, to] 范围内的执行时间，按时间排序
+     * 结果惰性归并，调用方取够所需数量即可停止。
+     */
+    public Iterator<RecurringOccurrence> occurrencesBetween(long from, long to) {
+        List<RecurringScheduleRule> enabled = new ArrayList<>();
         for (RecurringScheduleRule rule : recurringRules.values()) {
             if (rule.isEnabled()) {
-                if (generateTasksForRule(rule)) {
-                    generated++;
+                enabled.add(rule);
+            }
+        }
+        return new OccurrenceMergeIterator(enabled, from, to);
+    }
+
+    /**
+     * 所有启用的周期性规则在 (from, to] 范围内最早的至多 limit 次执行
+     */
+    public List<RecurringOccurrence> getOccurrencesBetween(long from, long to, int limit) {
+        List<RecurringOccurrence> result = new ArrayList<>();
+        Iterator<RecurringOccurrence> it = occurrencesBetween(from, to);
+        while (it.hasNext() && result.size() < limit) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * 未来 (from, to] 内按标签统计的预约构建数，供节点预先准备执行能力
+     * 包括已生成的待执行任务和尚未生成任务的周期性规则执行；任务未限定标签时计入 ""，找不到的任务不计入。
+     * @return 标签表达式 → 构建数
+     */
+    public Map<String, Integer> getForwardDemand(long from, long to) {
+        Map<String, Integer> demand = new HashMap<>();
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return demand;
+        }
+        // 同一任务名称只解析一次，找不到的任务记为 null
+        Map<String, Optional<String>> labels = new HashMap<>();
+        try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
+            for (ScheduledBuildTask task : index.pendingBetween(from, to)) {
+                addDemand(demand, labels, jenkins, task.getJobName());
+            }
+            Iterator<RecurringOccurrence> occurrences = occurrencesBetween(from, to);
+            for (int n = 0; occurrences.hasNext() && n < MAX_FORWARD_DEMAND_OCCURRENCES; n++) {
+                RecurringOccurrence occurrence = occurrences.next();
+                if (index.occurrence(occurrence.getRuleId(), occurrence.getTime()) == null) {
+                    addDemand(demand, labels, jenkins, occurrence.getJobName());
                 }
             }
         }
-        
-        if (generated > 0) {
-            LOGGER.info(String.format("为 %d 个周期性规则生成了新任务", generated));
+        return demand;
+    }
+
+    private void addDemand(Map<String, Integer> demand, Map<String, Optional<String>> labels,
+                           Jenkins jenkins, String jobName) {
+        Optional<String> label = labels.computeIfAbsent(jobName, name -> {
+            Job<?, ?> job = jobResolver.resolve(jenkins, name);
+            if (!(job instanceof hudson.model.Queue.Task)) {
+                return Optional.empty();
+            }
+            Label assigned = ((hudson.model.Queue.Task) job).getAssignedLabel();
+            return Optional.of(assigned != null ? assigned.getName() : "");
+        });
+        label.ifPresent(name -> demand.merge(name, 1, Integer::sum));
+    }
+
+    /**
+     * 启用的周期性规则在 (from, to] 范围内每分钟的执行次数，分散前后对比
+     * @return 分钟起始时间 → {分散前次数, 分散后次数}，只包含至少一侧不为 0 的分钟，按时间排序
+     */
+    SortedMap<Long, int[]> getSpreadHistogram(long from, long to) {
+        SortedMap<Long, int[]> histogram = new TreeMap<>();
+        long minute = TimeUnit.MINUTES.toMillis(1);
+        for (RecurringScheduleRule rule : recurringRules.values()) {
+            if (!rule.isEnabled()) {
+                continue;
+            }
+            PrimitiveIterator.OfLong nominal = rule.nominalOccurrences(from, to);
+            while (nominal.hasNext()) {
+                long time = nominal.nextLong();
+                histogram.computeIfAbsent(time - Math.floorMod(time, minute), k -> new int[2])[0]++;
+            }
+            PrimitiveIterator.OfLong actual = rule.occurrences(from, to);
+            while (actual.hasNext()) {
+                long time = actual.nextLong();
+                histogram.computeIfAbsent(time - Math.floorMod(time, minute), k -> new int[2])[1]++;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 启动周期性规则处理器
+     * 启动时所有启用的规则立即处理一次，之后每条规则在其下一次执行时间到达时再处理
+     */
+    private void startRecurringScheduleProcessor() {
+        if (ruleProcessor != null) {
+            return;
+        }
+        ruleProcessor = new RecurringRuleProcessor(this::processRecurringRule);
+        long now = System.currentTimeMillis();
+        for (RecurringScheduleRule rule : recurringRules.values()) {
+            if (rule.isEnabled()) {
+                ruleProcessor.schedule(rule.getId(), now);
+            }
         }
+        LOGGER.info(String.format("周期性规则处理器已启动，共 %d 条规则", ruleProcessor.size()));
     }
 
     /**
-     * 为指定规则生成任务
+     * 处理器回调：规则到达下一次执行时间，为其生成后续任务
+     */
+    private void processRecurringRule(String ruleId) {
+        RecurringScheduleRule rule = recurringRules.get(ruleId);
+        if (rule == null) {
+            return;
+        }
+        try (StripedLocks.Held ignored = locks.lock(rule.getJobName())) {
+            if (recurringRules.get(ruleId) == rule) {
+                generateTasksForRule(rule);
+            }
+        }
+    }
+
+    /**
+     * 登记规则的下一次处理时间
+     */
+    private void scheduleRule(String ruleId, long time) {
+        if (ruleProcessor != null) {
+            ruleProcessor.schedule(ruleId, time);
+        }
+    }
+
+    /**
+     * 规则不再需要处理（已删除、已禁用或没有后续执行时间）
+     */
+    private void unscheduleRule(String ruleId) {
+        if (ruleProcessor != null) {
+            ruleProcessor.remove(ruleId);
+        }
+    }
+
+    /**
+     * 为指定规则补足预生成窗口内的任务，调用方需持有该规则所属任务的分段锁
+     * 按 (规则ID, 执行时间) 去重：已生成过的执行时间（包括被单独修改或取消的）不会重复生成。
+     * 最早一次执行时间到达后窗口向前推进，规则在那时再次被处理。
      * @return 是否生成了新任务
      */
     private boolean generateTasksForRule(RecurringScheduleRule rule) {
         if (!rule.isEnabled()) {
+            unscheduleRule(rule.getId());
             return false;
         }
 
         long now = System.currentTimeMillis();
-        Long nextTime = rule.getNextExecutionTime(now);
-        
-        if (nextTime == null) {
-            LOGGER.fine("规则 " + rule.getId() + " 没有下一次执行时间");
-            return false;
-        }
-
-        // 检查是否已经存在该规则在该时间点的任务
-        boolean exists = tasks.values().stream()
-                .anyMatch(task -> rule.getId().equals(task.getRecurringRuleId()) 
-                        && task.isPending()
-                        && Math.abs(task.getScheduledTime() - nextTime) < 60000); // 1分钟内视为同一时间
+        long horizon = now + RECURRING_LOOK_AHEAD_MILLIS;
+        String description = String.format("[周期性] %s - %s",
+                rule.getScheduleDescription(),
+                rule.getDescription() != null ? rule.getDescription() : "");
+        List<ScheduledBuildTask> created = new ArrayList<>();
+        Long firstTime = null;
+        int count = 0;
+        PrimitiveIterator.OfLong occurrences = rule.occurrences(now, Long.MAX_VALUE);
+        while (count < MAX_OCCURRENCES_PER_RULE && occurrences.hasNext()) {
+            long nextTime = occurrences.nextLong();
+            if (count >= RECURRING_LOOK_AHEAD_COUNT && nextTime > horizon) {
+                break;
+            }
+            if (firstTime == null) {
+                firstTime = nextTime;
+            }
+            count++;
+            if (index.occurrence(rule.getId(), nextTime) != null) {
+                continue;
+            }
 
-        if (!exists) {
-            String description = String.format("[周期性] %s - %s", 
-                    rule.getScheduleDescription(), 
-                    rule.getDescription() != null ? rule.getDescription() : "");
-            
             ScheduledBuildTask task = new ScheduledBuildTask(
                     rule.getJobName(),
                     nextTime,
@@ -511,180 +1521,172 @@ public class ScheduledBuildManager extends GlobalConfiguration {
                     description,
                     rule.getId()
             );
-            
-            tasks.put(task.getId(), task);
-            scheduleTask(task);
-            save();
-            
-            LOGGER.info(String.format("为周期性规则 %s 生成新任务: %s", rule.getId(), task));
-            return true;
+            task.setMisfirePolicy(rule.getMisfirePolicy());
+            task.setPriority(rule.getPriority());
+            task.setLeadSeconds(rule.getLeadSeconds());
+            putTask(task);
+            store().taskChanged(task);
+            created.add(task);
         }
-        
-        return false;
+
+        if (firstTime == null) {
+            LOGGER.fine("规则 " + rule.getId() + " 没有下一次执行时间");
+            unscheduleRule(rule.getId());
+            return false;
+        }
+        // 最早一次执行时间到达后再补足窗口
+        scheduleRule(rule.getId(), firstTime);
+
+        if (created.isEmpty()) {
+            return false;
+        }
+        scheduleTasks(created);
+        LOGGER.info(String.format("为周期性规则 %s 生成了 %d 个新任务，最早 %s", rule.getId(), created.size(),
+                new Date(created.get(0).getScheduledTime())));
+        return true;
     }
 
     /**
-     * 取消指定规则生成的所有待执行任务
+     * 取消指定规则生成的所有待执行任务，调用方需持有该规则所属任务的分段锁
      */
     private void cancelTasksForRule(String ruleId) {
         int cancelled = 0;
-        for (ScheduledBuildTask task : tasks.values()) {
-            if (ruleId.equals(task.getRecurringRuleId()) && task.isPending()) {
-                task.setCancelled(true);
-                cancelled++;
+        for (ScheduledBuildTask task : index.pendingForRule(ruleId)) {
+            if (!task.cancel()) {
+                continue;
             }
+            index.markDone(task);
+            // 规则整体停用而非单独取消，重新启用时这些执行时间可以再次生成
+            index.releaseOccurrence(task);
+            task.setOccurrenceTime(null);
+            cancelTimer(task.getId());
+            store().taskChanged(task);
+            cancelled++;
         }
         
         if (cancelled > 0) {
-            save();
             LOGGER.info(String.format("取消了规则 %s 的 %d 个待执行任务", ruleId, cancelled));
         }
     }
 
-    @Override
-    public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
-        save();
-        return true;
-    }
-    
+    // ==================== 任务变更 ====================
+
     /**
-     * 尝试多种方式查找任务，提高兼容性
-     * 支持 FreeStyle、Pipeline、Folder 等各种任务类型
+     * 任务重命名或移动（包括所在文件夹的重命名或移动）后，把相关预约和规则改为新的任务全名
+     * 索引按任务逐个增量更新，触发时无需再按旧名称查找任务。
      */
-    private Job<?, ?> findJob(Jenkins jenkins, String jobName) {
-        if (jobName == null || jobName.isEmpty()) {
-            LOGGER.warning("任务名称为空");
-            return null;
-        }
-        
-        LOGGER.info(String.format("开始查找任务: %s", jobName));
-        
-        // 方式1: 使用 getItemByFullName (标准方式，支持文件夹路径)
-        try {
-            Job<?, ?> job = jenkins.getItemByFullName(jobName, Job.class);
-            if (job != null) {
-                LOGGER.info(String.format("方式1成功: getItemByFullName 找到任务 %s", jobName));
-                return job;
-            }
-        } catch (Exception e) {
-            LOGGER.warning(String.format("方式1失败: getItemByFullName 查找 %s 出错: %s", jobName, e.getMessage()));
-        }
-        
-        // 方式2: 使用 getItem (不支持路径，仅根目录)
-        try {
-            Item item = jenkins.getItem(jobName);
-            if (item instanceof Job) {
-                LOGGER.info(String.format("方式2成功: getItem 找到任务 %s", jobName));
-                return (Job<?, ?>) item;
-            }
-        } catch (Exception e) {
-            LOGGER.warning(String.format("方式2失败: getItem 查找 %s 出错: %s", jobName, e.getMessage()));
-        }
-        
-        // 方式3: 尝试处理转义的任务名称（URL编码）
-        try {
-            String decodedName = java.net.URLDecoder.decode(jobName, "UTF-8");
-            if (!decodedName.equals(jobName)) {
-                LOGGER.info(String.format("尝试解码后的任务名: %s -> %s", jobName, decodedName));
-                Job<?, ?> job = jenkins.getItemByFullName(decodedName, Job.class);
-                if (job != null) {
-                    LOGGER.info(String.format("方式3成功: 使用解码名称找到任务 %s", decodedName));
-                    return job;
+    void jobLocationChanged(String oldFullName, String newFullName) {
+        int updated = 0;
+        for (String oldName : jobNamesUnder(oldFullName)) {
+            String newName = newFullName + oldName.substring(oldFullName.length());
+            try (StripedLocks.Held ignored = locks.lockAll(Arrays.asList(oldName, newName))) {
+                for (ScheduledBuildTask task : index.tasksForJob(oldName)) {
+                    index.remove(task);
+                    task.setJobName(newName);
+                    index.add(task);
+                    store().taskChanged(task);
+                    updated++;
                 }
-            }
-        } catch (Exception e) {
-            LOGGER.warning(String.format("方式3失败: URL解码查找 %s 出错: %s", jobName, e.getMessage()));
-        }
-        
-        // 方式4: 遍历所有任务查找精确匹配（最后的兜底方案）
-        try {
-            LOGGER.info("方式4: 开始遍历所有任务");
-            for (Item item : jenkins.getAllItems()) {
-                if (item instanceof Job) {
-                    Job<?, ?> job = (Job<?, ?>) item;
-                    String fullName = job.getFullName();
-                    String name = job.getName();
-                    
-                    // 尝试匹配 fullName 或 name
-                    if (fullName.equals(jobName) || name.equals(jobName)) {
-                        LOGGER.info(String.format("方式4成功: 遍历找到任务 %s (fullName: %s, name: %s)", 
-                            jobName, fullName, name));
-                        return job;
+                for (RecurringScheduleRule rule : recurringRules.values()) {
+                    if (rule.getJobName().equals(oldName)) {
+                        rule.setJobName(newName);
+                        store().ruleChanged(rule);
+                        updated++;
                     }
                 }
+                store().jobRenamed(oldName, newName);
             }
-        } catch (Exception e) {
-            LOGGER.warning(String.format("方式4失败: 遍历查找 %s 出错: %s", jobName, e.getMessage()));
         }
-        
-        // 所有方式都失败，记录详细诊断信息
-        LOGGER.severe(String.format("所有查找方式都失败，无法找到任务: %s", jobName));
-        
-        // 诊断信息：当前认证上下文
-        try {
-            org.springframework.security.core.Authentication auth = 
-                org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null) {
-                LOGGER.info(String.format("当前认证上下文: %s (权限: %s)", 
-                    auth.getName(), 
-                    auth.getAuthorities()));
-            } else {
-                LOGGER.warning("当前认证上下文为 null");
-            }
-        } catch (Exception e) {
-            LOGGER.warning("获取认证上下文失败: " + e.getMessage());
+        if (updated > 0) {
+            LOGGER.info(String.format("任务 %s 已变更为 %s，更新了 %d 条预约和规则", oldFullName, newFullName, updated));
         }
-        
-        // 诊断信息：Jenkins 环境
-        LOGGER.info(String.format("Jenkins 类型: %s", jenkins.getClass().getName()));
-        LOGGER.info(String.format("Jenkins 版本: %s", Jenkins.VERSION));
-        LOGGER.info(String.format("当前线程: %s", Thread.currentThread().getName()));
-        
-        // 列出可用的任务
-        LOGGER.info("可用的任务列表:");
-        try {
-            List<Item> allItems = jenkins.getAllItems();
-            LOGGER.info(String.format("总共 %d 个项目", allItems.size()));
-            
-            int count = 0;
-            int jobCount = 0;
-            for (Item item : allItems) {
-                if (item instanceof Job) {
-                    jobCount++;
-                    Job<?, ?> job = (Job<?, ?>) item;
-                    if (count < 20) {
-                        LOGGER.info(String.format("  - %s (类型: %s, fullName: %s)", 
-                            job.getName(), job.getClass().getSimpleName(), job.getFullName()));
-                        count++;
+    }
+
+    /**
+     * 任务（或文件夹）被删除后，清除其下所有预约和周期性规则
+     */
+    void jobDeleted(String fullName) {
+        int removed = 0;
+        for (String jobName : jobNamesUnder(fullName)) {
+            try (StripedLocks.Held ignored = locks.lock(jobName)) {
+                for (ScheduledBuildTask task : index.tasksForJob(jobName)) {
+                    task.cancel();
+                    dropTask(task);
+                    cancelTimer(task.getId());
+                    store().taskRemoved(task);
+                    removed++;
+                }
+                for (RecurringScheduleRule rule : recurringRules.values()) {
+                    if (rule.getJobName().equals(jobName) && recurringRules.remove(rule.getId(), rule)) {
+                        unscheduleRule(rule.getId());
+                        store().ruleRemoved(rule);
+                        removed++;
                     }
                 }
             }
-            
-            if (jobCount == 0) {
-                LOGGER.warning("未找到任何任务！可能是权限问题或在错误的上下文中执行");
-            } else {
-                LOGGER.info(String.format("总共 %d 个任务", jobCount));
-                if (jobCount > 20) {
-                    LOGGER.info("  ... (只显示前20个任务)");
-                }
+        }
+        if (removed > 0) {
+            LOGGER.info(String.format("任务 %s 已删除，清除了 %d 条预约和规则", fullName, removed));
+        }
+    }
+
+    /**
+     * 预约或规则所属的任务名称中，等于 fullName 或位于其下的名称
+     */
+    private Set<String> jobNamesUnder(String fullName) {
+        Set<String> names = new HashSet<>(index.jobNamesUnder(fullName));
+        String prefix = fullName + "/";
+        for (RecurringScheduleRule rule : recurringRules.values()) {
+            String name = rule.getJobName();
+            if (name.equals(fullName) || name.startsWith(prefix)) {
+                names.add(name);
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "列出任务失败", e);
         }
-        
-        return null;
+        return names;
     }
 
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        save();
+        return true;
+    }
+    
     /**
      * 预约构建的触发原因
      */
     public static class ScheduledBuildCause extends Cause {
         private final String taskId;
         private final String description;
+        // 预约的触发时间和优先级，供队列排序使用；旧版本保存的构建记录中为 0 和 null
+        private final long scheduledTime;
+        private final SchedulePriority priority;
+        private final int leadSeconds;
 
         public ScheduledBuildCause(ScheduledBuildTask task) {
             this.taskId = task.getId();
             this.description = task.getDescription();
+            this.scheduledTime = task.getScheduledTime();
+            this.priority = task.getPriority();
+            this.leadSeconds = task.getLeadSeconds();
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public long getScheduledTime() {
+            return scheduledTime;
+        }
+
+        public SchedulePriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * 提前入队的秒数，0 表示在预约时间提交
+         */
+        public int getLeadSeconds() {
+            return leadSeconds;
         }
 
         @Override
@@ -0,0 +1,128 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.Extension;
+import hudson.model.Label;
+import hudson.model.LoadStatistics;
+import hudson.slaves.Cloud;
+import hudson.slaves.NodeProvisioner;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 在预约构建集中到期之前预先申请云节点
+ * 把未来 provisionAheadMinutes 分钟内到期的预约构建按标签计入需求，与该标签当前的队列长度一起，
+ * 扣除可用、连接中和已计划的执行器后，向能提供该标签的云申请差额。
+ * 申请的节点登记为计划容量，之后的默认策略会把它们计算在内，不会重复申请。
+ *
+ * 默认不启用；提前量应大于云节点从申请到上线所需的时间。
+ */
+@Extension(ordinal = 100)
+public class ScheduledBuildProvisioningStrategy extends NodeProvisioner.Strategy {
+    private static final Logger LOGGER = Logger.getLogger(ScheduledBuildProvisioningStrategy.class.getName());
+
+    private static final long AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(Math.max(0, SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".provisionAheadMinutes", 0L)));
+
+    // NodeProvisioner 会依次为每个标签调用策略，同一轮内复用统计结果
+    private static final long DEMAND_CACHE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final long aheadMillis;
+
+    private volatile Demand cached;
+
+    public ScheduledBuildProvisioningStrategy() {
+        this(AHEAD_MILLIS);
+    }
+
+    ScheduledBuildProvisioningStrategy(long aheadMillis) {
+        this.aheadMillis = aheadMillis;
+    }
+
+    @Override
+    public NodeProvisioner.StrategyDecision apply(NodeProvisioner.StrategyState state) {
+        if (aheadMillis <= 0) {
+            return NodeProvisioner.StrategyDecision.CONSULT_REMAINING_STRATEGIES;
+        }
+        try {
+            LoadStatistics.LoadStatisticsSnapshot snapshot = state.getSnapshot();
+            provision(System.currentTimeMillis(), state.getLabel(), snapshot.getQueueLength(),
+                    snapshot.getAvailableExecutors() + snapshot.getConnectingExecutors()
+                            + state.getPlannedCapacitySnapshot(),
+                    state.getAdditionalPlannedCapacity(), state::recordPendingLaunches);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "为预约构建预先申请节点失败", e);
+        }
+        return NodeProvisioner.StrategyDecision.CONSULT_REMAINING_STRATEGIES;
+    }
+
+    /**
+     * 按未来的预约需求和现有容量向云申请标签 label 的节点
+     * @param capacity 可用、连接中和之前各轮已计划的执行器数
+     * @param additionalPlannedCapacity 本轮中前面的策略已计划的执行器数
+     * @param pendingLaunches 登记申请到的节点，之后的策略和各轮会把它们计入已计划容量
+     * @return 本次申请到的执行器数
+     */
+    int provision(long now, Label label, int queueLength, int capacity, int additionalPlannedCapacity,
+                  Consumer<Collection<NodeProvisioner.PlannedNode>> pendingLaunches) {
+        int upcoming = demand(now).getOrDefault(label != null ? label.getName() : "", 0);
+        if (upcoming == 0) {
+            return 0;
+        }
+        int excess = upcoming + queueLength - capacity - additionalPlannedCapacity;
+        int provisioned = 0;
+        Jenkins jenkins = Jenkins.get();
+        for (Cloud cloud : jenkins.clouds) {
+            if (excess <= 0) {
+                break;
+            }
+            Cloud.CloudState cloudState = new Cloud.CloudState(label, additionalPlannedCapacity + provisioned);
+            if (!cloud.canProvision(cloudState)) {
+                continue;
+            }
+            Collection<NodeProvisioner.PlannedNode> planned = cloud.provision(cloudState, excess);
+            if (planned == null || planned.isEmpty()) {
+                continue;
+            }
+            pendingLaunches.accept(planned);
+            int executors = 0;
+            for (NodeProvisioner.PlannedNode node : planned) {
+                executors += node.numExecutors;
+            }
+            excess -= executors;
+            provisioned += executors;
+            LOGGER.info(String.format("未来 %d 分钟内标签 %s 有 %d 个预约构建，向云 %s 预先申请了 %d 个执行器",
+                    TimeUnit.MILLISECONDS.toMinutes(aheadMillis), label, upcoming, cloud.name, executors));
+        }
+        return provisioned;
+    }
+
+    private Map<String, Integer> demand(long now) {
+        Demand demand = cached;
+        if (demand == null || now - demand.computedAt > DEMAND_CACHE_MILLIS) {
+            ScheduledBuildManager manager = ScheduledBuildManager.get();
+            Map<String, Integer> byLabel = manager != null
+                    ? manager.getForwardDemand(now, now + aheadMillis) : Collections.emptyMap();
+            demand = new Demand(now, byLabel);
+            cached = demand;
+        }
+        return demand.byLabel;
+    }
+
+    private static final class Demand {
+        private final long computedAt;
+        private final Map<String, Integer> byLabel;
+
+        Demand(long computedAt, Map<String, Integer> byLabel) {
+            this.computedAt = computedAt;
+            this.byLabel = byLabel;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.Extension;
+import hudson.model.Cause;
+import hudson.model.Queue;
+import hudson.model.queue.QueueSorter;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 让预约构建优先获得执行器
+ * 普通排队项按入队时间先后排列；预约构建的排序时间在入队时间的基础上提前：
+ * 提前量为入队时已迟到的时间（推迟、补触发等）加上按优先级给出的提前量，两者之和不超过最大提前量。
+ * 因此任何排队项最多只会被晚于它最大提前量入队的预约构建超过，不会被饿死。
+ *
+ * Jenkins 只使用一个 QueueSorter，安装了其他排序插件时以那个插件为准（本排序器序号较低）。
+ */
+@Extension(ordinal = -100)
+public class ScheduledBuildQueueSorter extends QueueSorter {
+
+    /**
+     * 最大提前量（分钟），0 表示按入队时间排列，不优待预约构建
+     */
+    private static final long MAX_BOOST_MILLIS = TimeUnit.MINUTES.toMillis(Math.max(0, SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".queueBoostMinutes", 15L)));
+
+    private static final Comparator<Ranked> ORDER = Comparator.comparingLong(r -> r.sortTime);
+
+    @Override
+    public void sortBuildableItems(List<Queue.BuildableItem> items) {
+        sort(items);
+    }
+
+    @Override
+    public void sortBlockedItems(List<Queue.BlockedItem> items) {
+        sort(items);
+    }
+
+    private static <T extends Queue.Item> void sort(List<T> items) {
+        if (items.size() < 2) {
+            return;
+        }
+        // 每项只计算一次排序时间，稳定排序保证时间相同的项保持原有顺序
+        List<Ranked> ranked = new ArrayList<>(items.size());
+        for (Queue.Item item : items) {
+            ranked.add(new Ranked(item, sortTime(item)));
+        }
+        ranked.sort(ORDER);
+        for (int i = 0; i < ranked.size(); i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) ranked.get(i).item;
+            items.set(i, item);
+        }
+    }
+
+    /**
+     * 排序时间：入队时间减去提前量
+     * 提前入队的预约构建按预约时间计算，静默期内的等待不算作排队时间
+     */
+    static long sortTime(Queue.Item item) {
+        long inQueueSince = item.getInQueueSince();
+        ScheduledBuildManager.ScheduledBuildCause cause = scheduledCause(item);
+        if (cause == null) {
+            return inQueueSince;
+        }
+        long entered = Math.max(inQueueSince, cause.getScheduledTime());
+        return entered - boost(cause, entered);
+    }
+
+    static long boost(ScheduledBuildManager.ScheduledBuildCause cause, long inQueueSince) {
+        // 旧版本写入的原因没有预约时间，不计迟到
+        long late = cause.getScheduledTime() > 0 ? Math.max(0, inQueueSince - cause.getScheduledTime()) : 0;
+        SchedulePriority priority = cause.getPriority() != null ? cause.getPriority() : SchedulePriority.defaultPriority();
+        long boost = late + (long) (MAX_BOOST_MILLIS * priority.getBoostRatio());
+        return Math.min(boost, MAX_BOOST_MILLIS);
+    }
+
+    private static ScheduledBuildManager.ScheduledBuildCause scheduledCause(Queue.Item item) {
+        for (Cause cause : item.getCauses()) {
+            if (cause instanceof ScheduledBuildManager.ScheduledBuildCause) {
+                return (ScheduledBuildManager.ScheduledBuildCause) cause;
+            }
+        }
+        return null;
+    }
+
+    private static final class Ranked {
+        private final Queue.Item item;
+        private final long sortTime;
+
+        Ranked(Queue.Item item, long sortTime) {
+            this.item = item;
+            this.sortTime = sortTime;
+        }
+    }
+}
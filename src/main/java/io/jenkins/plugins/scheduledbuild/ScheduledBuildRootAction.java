@@ -0,0 +1,92 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全局的预约构建统计接口，地址为 JENKINS_URL/scheduled-builds/
+ * 统计覆盖所有任务的规则，不挂在单个任务下；不在侧边栏显示，需要管理员权限。
+ */
+@Extension
+public class ScheduledBuildRootAction implements RootAction {
+
+    // 执行次数分布最多统计的小时数
+    private static final int MAX_HISTOGRAM_HOURS = 7 * 24;
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "预约构建统计";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "scheduled-builds";
+    }
+
+    /**
+     * 所有周期性规则未来若干小时内每分钟的执行次数，对比分散窗口生效前后（需要管理员权限）
+     * 返回 {"from": ..., "to": ..., "peakBefore": n, "peakAfter": n, "minutes": [{"minute": ..., "before": n, "after": n}]}，
+     * 只列出有执行的分钟。
+     */
+    public void doSpreadHistogram(StaplerRequest req, StaplerResponse rsp,
+                                  @QueryParameter("hours") String hours) throws IOException, ServletException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager == null) {
+            throw new ServletException("ScheduledBuildManager 未初始化，请重启 Jenkins");
+        }
+        int range = 24;
+        if (hours != null && !hours.isEmpty()) {
+            try {
+                range = Math.max(1, Math.min(MAX_HISTOGRAM_HOURS, Integer.parseInt(hours)));
+            } catch (NumberFormatException e) {
+                rsp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                ScheduledBuildAction.writeJson(rsp, new JSONObject().element("message", "无效的小时数: " + hours));
+                return;
+            }
+        }
+
+        long from = System.currentTimeMillis();
+        long to = from + TimeUnit.HOURS.toMillis(range);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        JSONArray minutes = new JSONArray();
+        int peakBefore = 0;
+        int peakAfter = 0;
+        for (Map.Entry<Long, int[]> entry : manager.getSpreadHistogram(from, to).entrySet()) {
+            int[] counts = entry.getValue();
+            peakBefore = Math.max(peakBefore, counts[0]);
+            peakAfter = Math.max(peakAfter, counts[1]);
+            minutes.add(new JSONObject()
+                    .element("minute", entry.getKey())
+                    .element("time", format.format(new Date(entry.getKey())))
+                    .element("before", counts[0])
+                    .element("after", counts[1]));
+        }
+        ScheduledBuildAction.writeJson(rsp, new JSONObject()
+                .element("from", from)
+                .element("to", to)
+                .element("peakBefore", peakBefore)
+                .element("peakAfter", peakAfter)
+                .element("minutes", minutes));
+    }
+}
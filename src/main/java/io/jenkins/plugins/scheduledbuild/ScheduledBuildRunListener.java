@@ -0,0 +1,27 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * 监听预约构建的开始，统计从预约时间到实际开始执行的延迟
+ * 有无提前入队的构建分开统计，便于比较提前入队的效果
+ */
+@Extension
+public class ScheduledBuildRunListener extends RunListener<Run<?, ?>> {
+
+    @Override
+    public void onStarted(Run<?, ?> run, TaskListener listener) {
+        ScheduledBuildManager.ScheduledBuildCause cause = run.getCause(ScheduledBuildManager.ScheduledBuildCause.class);
+        // 旧版本写入的原因没有预约时间，无法统计
+        if (cause == null || cause.getScheduledTime() <= 0) {
+            return;
+        }
+        ScheduledBuildManager manager = ScheduledBuildManager.get();
+        if (manager != null) {
+            manager.recordStartLatency(run, cause, run.getStartTimeInMillis() - cause.getScheduledTime());
+        }
+    }
+}
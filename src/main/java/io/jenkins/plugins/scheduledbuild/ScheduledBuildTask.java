@@ -6,24 +6,64 @@ import hudson.model.BooleanParameterValue;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * 预约构建任务数据模型
  * 表示单个预约的构建任务
+ *
+ * 任务状态只能通过 CAS 单向流转：PENDING → DISPATCHING → QUEUED/FAILED，或 PENDING → CANCELLED/MISSED。
+ * 触发线程必须先把任务从 PENDING 切到 DISPATCHING，因此同一任务最多只会被触发一次，
+ * 与并发的取消操作之间也只会有一方成功。
  */
 public class ScheduledBuildTask implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    // 提前入队时间的上限，不超过定时窗口每次推进前剩余的最短时间
+    static final int MAX_LEAD_SECONDS = 30 * 60;
+
     private final String id;
-    private final String jobName;
+    // 任务重命名或移动时由 ScheduledBuildManager 更新
+    private volatile String jobName;
     private final long scheduledTime;
     private final Map<String, String> parameters;
     private final String description;
-    private boolean cancelled;
-    private boolean executed;
+    private volatile State state = State.PENDING;
+    // 与 state 保持同步，保留是为了兼容旧版本的持久化数据和页面
+    private volatile boolean cancelled;
+    private volatile boolean executed;
     
     // 关联的周期性规则ID（如果是由周期性规则生成的任务）
     private String recurringRuleId;
+    // 对应规则的哪一次执行时间，修改预约时间后保持不变；规则整体停用时清空，允许重新生成
+    private volatile Long occurrenceTime;
+    // 错过触发时间后的处理策略，null 表示使用默认策略
+    private MisfirePolicy misfirePolicy;
+    // 在构建队列中的优先级，null 表示默认优先级
+    private SchedulePriority priority;
+    // 提前入队的秒数：提前提交到构建队列，静默期恰好在预约时间结束，0 表示准时提交
+    private int leadSeconds;
+
+    private static final AtomicReferenceFieldUpdater<ScheduledBuildTask, State> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(ScheduledBuildTask.class, State.class, "state");
+
+    /**
+     * 任务状态
+     */
+    public enum State {
+        /** 等待触发 */
+        PENDING,
+        /** 已被触发线程认领，正在提交到构建队列 */
+        DISPATCHING,
+        /** 已成功提交到构建队列 */
+        QUEUED,
+        /** 触发失败（任务不存在、无法入队等） */
+        FAILED,
+        /** 已取消 */
+        CANCELLED,
+        /** 错过触发时间且按策略不再补触发 */
+        MISSED
+    }
 
     public ScheduledBuildTask(String jobName, long scheduledTime, Map<String, String> parameters, String description) {
         this.id = UUID.randomUUID().toString();
@@ -31,8 +71,6 @@ public class ScheduledBuildTask implements Serializable {
         this.scheduledTime = scheduledTime;
         this.parameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
         this.description = description;
-        this.cancelled = false;
-        this.executed = false;
         this.recurringRuleId = null;
     }
     
@@ -46,8 +84,20 @@ public class ScheduledBuildTask implements Serializable {
         this.scheduledTime = scheduledTime;
         this.parameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
         this.description = description;
-        this.cancelled = false;
-        this.executed = false;
+        this.recurringRuleId = recurringRuleId;
+        this.occurrenceTime = recurringRuleId != null ? scheduledTime : null;
+    }
+
+    /**
+     * 构造函数：从快照恢复任务，保留原有ID
+     */
+    ScheduledBuildTask(String id, String jobName, long scheduledTime, Map<String, String> parameters,
+                       String description, String recurringRuleId) {
+        this.id = id;
+        this.jobName = jobName;
+        this.scheduledTime = scheduledTime;
+        this.parameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
+        this.description = description;
         this.recurringRuleId = recurringRuleId;
     }
 
@@ -59,6 +109,10 @@ public class ScheduledBuildTask implements Serializable {
         return jobName;
     }
 
+    void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
     public long getScheduledTime() {
         return scheduledTime;
     }
@@ -67,6 +121,13 @@ public class ScheduledBuildTask implements Serializable {
         return new Date(scheduledTime);
     }
 
+    /**
+     * 分发器触发的时间：预约时间减去提前入队时间
+     */
+    public long getFireTime() {
+        return scheduledTime - leadSeconds * 1000L;
+    }
+
     public Map<String, String> getParameters() {
         return new HashMap<>(parameters);
     }
@@ -75,28 +136,88 @@ public class ScheduledBuildTask implements Serializable {
         return description;
     }
 
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 状态迁移：只有当前状态为 expect 时才会切换到 update
+     * @return 是否迁移成功
+     */
+    boolean transition(State expect, State update) {
+        if (STATE.compareAndSet(this, expect, update)) {
+            syncFlags(update);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 取消尚未触发的任务，正在触发或已结束的任务无法取消
+     * @return 是否取消成功
+     */
+    public boolean cancel() {
+        return transition(State.PENDING, State.CANCELLED);
+    }
+
+    /**
+     * 从持久化数据恢复状态；重启前正在提交的任务视为未触发
+     */
+    void restoreState(State restored) {
+        state = restored == State.DISPATCHING ? State.PENDING : restored;
+        syncFlags(state);
+    }
+
+    private void syncFlags(State current) {
+        cancelled = current == State.CANCELLED;
+        executed = current == State.QUEUED;
+    }
+
     public boolean isCancelled() {
-        return cancelled;
+        return state == State.CANCELLED;
     }
 
+    /**
+     * @deprecated 使用 {@link #cancel()}；只能取消尚未触发的任务，传入 false 不会恢复已结束的任务
+     */
+    @Deprecated
     public void setCancelled(boolean cancelled) {
-        this.cancelled = cancelled;
+        if (cancelled) {
+            cancel();
+        }
     }
 
     public boolean isExecuted() {
-        return executed;
+        return state == State.QUEUED;
     }
 
+    /**
+     * @deprecated 状态由触发流程维护；只能把尚未结束的任务标记为已触发，传入 false 不会恢复已结束的任务
+     */
+    @Deprecated
     public void setExecuted(boolean executed) {
-        this.executed = executed;
+        if (executed && !transition(State.PENDING, State.QUEUED)) {
+            transition(State.DISPATCHING, State.QUEUED);
+        }
+    }
+
+    public boolean isFailed() {
+        return state == State.FAILED;
     }
 
+    public boolean isMissed() {
+        return state == State.MISSED;
+    }
+
+    /**
+     * 是否等待触发，包括已过预约时间、正在等待补触发或准入的任务
+     */
     public boolean isPending() {
-        return !cancelled && !executed && scheduledTime > System.currentTimeMillis();
+        return state == State.PENDING;
     }
 
     public boolean isExpired() {
-        return !executed && scheduledTime <= System.currentTimeMillis();
+        return state != State.QUEUED && scheduledTime <= System.currentTimeMillis();
     }
     
     public String getRecurringRuleId() {
@@ -107,6 +228,52 @@ public class ScheduledBuildTask implements Serializable {
         this.recurringRuleId = recurringRuleId;
     }
     
+    /**
+     * 对应周期性规则的执行时间，不属于任何一次执行时返回 null
+     */
+    public Long getOccurrenceTime() {
+        return occurrenceTime;
+    }
+
+    void setOccurrenceTime(Long occurrenceTime) {
+        this.occurrenceTime = occurrenceTime;
+    }
+
+    public MisfirePolicy getMisfirePolicy() {
+        return misfirePolicy;
+    }
+
+    void setMisfirePolicy(MisfirePolicy misfirePolicy) {
+        this.misfirePolicy = misfirePolicy;
+    }
+
+    public SchedulePriority getPriority() {
+        return priority;
+    }
+
+    void setPriority(SchedulePriority priority) {
+        this.priority = priority;
+    }
+
+    public int getLeadSeconds() {
+        return leadSeconds;
+    }
+
+    void setLeadSeconds(int leadSeconds) {
+        this.leadSeconds = checkLeadSeconds(leadSeconds);
+    }
+
+    /**
+     * @throws IllegalArgumentException 超出 0 到 MAX_LEAD_SECONDS 的范围
+     */
+    static int checkLeadSeconds(int leadSeconds) {
+        if (leadSeconds < 0 || leadSeconds > MAX_LEAD_SECONDS) {
+            throw new IllegalArgumentException(String.format("提前入队时间应在 0 到 %d 秒之间: %d",
+                    MAX_LEAD_SECONDS, leadSeconds));
+        }
+        return leadSeconds;
+    }
+
     /**
      * 是否由周期性规则生成
      */
@@ -150,10 +317,45 @@ public class ScheduledBuildTask implements Serializable {
         return values;
     }
 
+    /**
+     * 旧版本的数据没有 state 字段，根据 cancelled/executed 推导
+     */
+    private Object readResolve() {
+        if (state == null) {
+            restoreState(executed ? State.QUEUED : cancelled ? State.CANCELLED : State.PENDING);
+        } else {
+            restoreState(state);
+        }
+        restoreOccurrence();
+        return this;
+    }
+
+    /**
+     * 复制当前状态，用于在锁外序列化；正在触发的任务与重启后一样按待执行保存
+     */
+    ScheduledBuildTask copy() {
+        ScheduledBuildTask task = new ScheduledBuildTask(id, jobName, scheduledTime, parameters, description, recurringRuleId);
+        task.restoreState(state);
+        task.occurrenceTime = occurrenceTime;
+        task.misfirePolicy = misfirePolicy;
+        task.priority = priority;
+        task.leadSeconds = leadSeconds;
+        return task;
+    }
+
+    /**
+     * 旧版本的数据没有 occurrenceTime，待执行的规则任务按预约时间对应到规则的执行时间
+     */
+    void restoreOccurrence() {
+        if (occurrenceTime == null && recurringRuleId != null && state == State.PENDING) {
+            occurrenceTime = scheduledTime;
+        }
+    }
+
     @Override
     public String toString() {
-        return String.format("ScheduledBuildTask[id=%s, job=%s, time=%s, params=%s, cancelled=%s, executed=%s, recurringRule=%s]",
-                id, jobName, new Date(scheduledTime), getParametersString(), cancelled, executed, recurringRuleId);
+        return String.format("ScheduledBuildTask[id=%s, job=%s, time=%s, params=%s, state=%s, recurringRule=%s]",
+                id, jobName, new Date(scheduledTime), getParametersString(), state, recurringRuleId);
     }
 }
 
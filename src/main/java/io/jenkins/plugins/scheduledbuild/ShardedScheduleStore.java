@@ -0,0 +1,275 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 按任务分片的存储
+ * 每个任务的预约和周期性规则保存在该任务目录下的 scheduled-builds.xml 中，
+ * 一次变更只重写所属任务的分片；启动时并行加载所有分片。
+ * 首次启用时会把全局配置文件中的数据迁移到分片，并把原文件重命名为 *.migrated；
+ * 之后只要 *.migrated 存在就不再迁移，全局配置文件中重新写出的数据一律忽略。
+ */
+class ShardedScheduleStore implements ScheduleStore {
+    private static final Logger LOGGER = Logger.getLogger(ShardedScheduleStore.class.getName());
+
+    static final String SHARD_FILE_NAME = "scheduled-builds.xml";
+
+    private static final long SAVE_INTERVAL_MILLIS = SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".saveIntervalMillis", 1000L);
+
+    private final ScheduledBuildManager manager;
+    private final Set<String> dirtyJobs = ConcurrentHashMap.newKeySet();
+    private final PersistenceWriter writer;
+
+    ShardedScheduleStore(ScheduledBuildManager manager) {
+        this.manager = manager;
+        this.writer = new PersistenceWriter("shards", SAVE_INTERVAL_MILLIS, this::writeDirtyShards);
+    }
+
+    @Override
+    public void recover(Map<String, ScheduledBuildTask> tasks, Map<String, RecurringScheduleRule> rules) throws IOException {
+        File globalFile = new File(Jenkins.get().getRootDir(), ScheduledBuildManager.class.getName() + ".xml");
+        if (new File(globalFile.getPath() + ".migrated").exists()) {
+            // 已迁移过：GlobalConfiguration.save() 会重新写出全局配置文件，其中的数据已过时，只以分片为准
+            if (!tasks.isEmpty() || !rules.isEmpty()) {
+                LOGGER.info(String.format("已迁移到任务分片，忽略全局配置中过时的 %d 个预约任务、%d 条周期性规则",
+                        tasks.size(), rules.size()));
+                tasks.clear();
+                rules.clear();
+            }
+        } else if (globalFile.exists() && (!tasks.isEmpty() || !rules.isEmpty())) {
+            migrate(globalFile, tasks, rules);
+        }
+
+        long start = System.currentTimeMillis();
+        List<File> shardFiles = new ArrayList<>();
+        collectShards(new File(Jenkins.get().getRootDir(), "jobs"), shardFiles);
+        if (shardFiles.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.min(shardFiles.size(), Math.max(1, Runtime.getRuntime().availableProcessors()));
+        ExecutorService loader = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<JobShard>> futures = new ArrayList<>();
+            for (File file : shardFiles) {
+                futures.add(loader.submit(() -> (JobShard) new XmlFile(Jenkins.XSTREAM2, file).read()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    JobShard shard = futures.get(i).get();
+                    if (shard == null) {
+                        continue;
+                    }
+                    for (ScheduledBuildTask task : shard.tasks) {
+                        tasks.put(task.getId(), task);
+                    }
+                    for (RecurringScheduleRule rule : shard.rules) {
+                        rules.put(rule.getId(), rule);
+                    }
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "加载预约分片失败: " + shardFiles.get(i), e);
+                }
+            }
+        } finally {
+            loader.shutdown();
+        }
+        LOGGER.info(String.format("从 %d 个任务分片加载预约数据，耗时 %d 毫秒",
+                shardFiles.size(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * 一次性迁移：把全局配置文件中的数据按任务写入分片
+     */
+    private void migrate(File globalFile, Map<String, ScheduledBuildTask> tasks,
+                         Map<String, RecurringScheduleRule> rules) throws IOException {
+        Map<String, JobShard> shards = new HashMap<>();
+        for (ScheduledBuildTask task : tasks.values()) {
+            shards.computeIfAbsent(task.getJobName(), JobShard::new).tasks.add(task);
+        }
+        for (RecurringScheduleRule rule : rules.values()) {
+            shards.computeIfAbsent(rule.getJobName(), JobShard::new).rules.add(rule);
+        }
+        for (JobShard shard : shards.values()) {
+            writeShard(shard);
+        }
+
+        File migrated = new File(globalFile.getPath() + ".migrated");
+        if (!globalFile.renameTo(migrated)) {
+            throw new IOException("无法重命名全局配置文件: " + globalFile);
+        }
+        File snapshot = ScheduledBuildManager.snapshotFile();
+        if (snapshot.exists() && !snapshot.renameTo(new File(snapshot.getPath() + ".migrated"))) {
+            throw new IOException("无法重命名预约快照: " + snapshot);
+        }
+        LOGGER.info(String.format("已将 %d 个任务的预约数据迁移到任务分片，原文件保存为 %s",
+                shards.size(), migrated.getName()));
+    }
+
+    /**
+     * 收集分片文件，只遍历文件夹的 jobs 和多分支项目的 branches 子目录，不进入构建记录
+     */
+    private static void collectShards(File jobsDir, List<File> result) {
+        File[] children = jobsDir.listFiles(File::isDirectory);
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            File shard = new File(child, SHARD_FILE_NAME);
+            if (shard.isFile()) {
+                result.add(shard);
+            }
+            collectShards(new File(child, "jobs"), result);
+            collectShards(new File(child, "branches"), result);
+        }
+    }
+
+    @Override
+    public void taskChanged(ScheduledBuildTask task) {
+        markDirty(task.getJobName());
+    }
+
+    @Override
+    public void taskRemoved(ScheduledBuildTask task) {
+        markDirty(task.getJobName());
+    }
+
+    @Override
+    public void ruleChanged(RecurringScheduleRule rule) {
+        markDirty(rule.getJobName());
+    }
+
+    @Override
+    public void ruleRemoved(RecurringScheduleRule rule) {
+        markDirty(rule.getJobName());
+    }
+
+    /**
+     * 任务目录随任务一起移动，新目录中的分片仍记录旧名称需要重写；旧名称对应的分片按空分片处理（删除）
+     */
+    @Override
+    public void jobRenamed(String oldName, String newName) {
+        markDirty(oldName);
+        markDirty(newName);
+    }
+
+    private void markDirty(String jobName) {
+        dirtyJobs.add(jobName);
+        writer.markDirty();
+    }
+
+    @Override
+    public PersistenceWriter writer() {
+        return writer;
+    }
+
+    @Override
+    public void flush() {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+
+    /**
+     * 重写所有有变更的任务分片
+     */
+    private void writeDirtyShards() {
+        int failed = 0;
+        for (String jobName : new ArrayList<>(dirtyJobs)) {
+            dirtyJobs.remove(jobName);
+            JobShard shard = new JobShard(jobName);
+            shard.tasks.addAll(manager.getTasksForJob(jobName));
+            shard.rules.addAll(manager.getRecurringRulesForJob(jobName));
+            try {
+                writeShard(shard);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "写入预约分片失败: " + jobName, e);
+                dirtyJobs.add(jobName);
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            // 交给 PersistenceWriter 保留变更计数并重试
+            throw new IllegalStateException(String.format("%d 个预约分片写入失败", failed));
+        }
+    }
+
+    private static void writeShard(JobShard shard) throws IOException {
+        File dir = jobDirectory(shard.jobName);
+        XmlFile file = new XmlFile(Jenkins.XSTREAM2, new File(dir, SHARD_FILE_NAME));
+        if (shard.tasks.isEmpty() && shard.rules.isEmpty()) {
+            if (file.exists()) {
+                file.delete();
+            }
+            return;
+        }
+        if (!dir.isDirectory()) {
+            LOGGER.warning(String.format("任务 %s 的目录不存在，跳过写入预约分片", shard.jobName));
+            return;
+        }
+        file.write(shard);
+    }
+
+    /**
+     * 任务目录：优先使用已加载任务的 getRootDir()，否则按默认布局 jobs/a/jobs/b 推算
+     */
+    static File jobDirectory(String jobName) {
+        Jenkins jenkins = Jenkins.get();
+        try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
+            Job<?, ?> job = jenkins.getItemByFullName(jobName, Job.class);
+            if (job != null) {
+                return job.getRootDir();
+            }
+        }
+        File dir = jenkins.getRootDir();
+        for (String segment : jobName.split("/")) {
+            dir = new File(new File(dir, "jobs"), segment);
+        }
+        return dir;
+    }
+
+    /**
+     * 单个任务分片的序列化内容
+     */
+    static final class JobShard {
+        private final String jobName;
+        private List<ScheduledBuildTask> tasks = new ArrayList<>();
+        private List<RecurringScheduleRule> rules = new ArrayList<>();
+
+        JobShard(String jobName) {
+            this.jobName = jobName;
+        }
+
+        private Object readResolve() {
+            if (tasks == null) {
+                tasks = new ArrayList<>();
+            }
+            if (rules == null) {
+                rules = new ArrayList<>();
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预约时间到构建实际开始之间的延迟统计
+ */
+public final class StartLatencyStats {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    void record(long latencyMillis) {
+        // 时钟误差可能得到负值，按准时开始计
+        long latency = Math.max(0, latencyMillis);
+        count.incrementAndGet();
+        totalMillis.addAndGet(latency);
+        maxMillis.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * 已统计的构建数
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getAverageMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMillis.get() / n;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, avg=%dms, max=%dms", getCount(), getAverageMillis(), getMaxMillis());
+    }
+}
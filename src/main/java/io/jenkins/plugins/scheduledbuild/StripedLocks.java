@@ -0,0 +1,59 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按键分段的锁
+ * 以任务全名为键把锁分散到固定数量的分段上，不同任务的变更互不阻塞。
+ * 需要同时持有多个分段时按分段下标升序加锁，避免死锁。
+ */
+class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+
+    StripedLocks(int count) {
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 锁定键所在的分段，配合 try-with-resources 使用
+     */
+    Held lock(String key) {
+        ReentrantLock lock = stripes[indexOf(key)];
+        lock.lock();
+        return lock::unlock;
+    }
+
+    /**
+     * 按分段下标顺序锁定多个键所在的分段
+     */
+    Held lockAll(Collection<String> keys) {
+        int[] indexes = keys.stream().mapToInt(this::indexOf).distinct().sorted().toArray();
+        for (int i = 0; i < indexes.length; i++) {
+            stripes[indexes[i]].lock();
+        }
+        return () -> {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        };
+    }
+
+    private int indexOf(String key) {
+        int h = key != null ? key.hashCode() : 0;
+        h ^= (h >>> 16);
+        return Math.floorMod(h, stripes.length);
+    }
+
+    /**
+     * 已持有的锁，close() 时释放
+     */
+    interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,72 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import jenkins.util.SystemProperties;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 预约任务分发器
+ * 负责在预约时间到达时把任务交给 {@link Handler} 执行，具体的定时实现可插拔
+ */
+public interface TaskDispatcher {
+
+    /**
+     * 选择分发器实现的系统属性，可选值：wheel（默认，分层时间轮）、executor（每个任务一个 ScheduledFuture）
+     */
+    String DISPATCHER_PROPERTY = ScheduledBuildManager.class.getName() + ".dispatcher";
+
+    /**
+     * 到期任务的处理回调
+     */
+    interface Handler {
+        /**
+         * 处理一批同时到期的任务，在分发器的工作线程中调用
+         */
+        void dispatch(List<ScheduledBuildTask> dueTasks);
+    }
+
+    /**
+     * 为任务安排定时，同一任务ID重复调度时以最后一次为准
+     */
+    void schedule(ScheduledBuildTask task);
+
+    /**
+     * 批量安排定时，默认逐个调用 {@link #schedule}
+     */
+    default void scheduleAll(Collection<ScheduledBuildTask> tasks) {
+        for (ScheduledBuildTask task : tasks) {
+            schedule(task);
+        }
+    }
+
+    /**
+     * 取消任务的定时，并把定时器从底层结构中移除
+     * @return 该任务是否存在尚未触发的定时
+     */
+    boolean cancel(String taskId);
+
+    /**
+     * 当前尚未触发的定时器数量
+     */
+    int getActiveTimerCount();
+
+    /**
+     * 停止分发器，释放线程
+     */
+    void shutdown();
+
+    /**
+     * 根据系统属性创建分发器
+     */
+    static TaskDispatcher create(Handler handler) {
+        String type = SystemProperties.getString(DISPATCHER_PROPERTY, "wheel");
+        if ("executor".equalsIgnoreCase(type)) {
+            Logger.getLogger(TaskDispatcher.class.getName()).info("使用 ScheduledExecutorService 任务分发器");
+            return new ExecutorTaskDispatcher(handler);
+        }
+        Logger.getLogger(TaskDispatcher.class.getName()).info("使用分层时间轮任务分发器");
+        return new TimingWheelDispatcher(handler);
+    }
+}
@@ -0,0 +1,221 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 预约任务的二级索引
+ * 维护按时间排序的待执行任务跳表，以及按任务名称、周期性规则划分的子索引，
+ * 使按任务/规则查询的开销为 O(log n + k)，而不是每次全量扫描 tasks。
+ *
+ * 这里的"待执行"指状态为 PENDING，是否已过预约时间由查询时的时间下界过滤。
+ * 规则生成的任务另外按 (规则ID, 执行时间) 建立索引，不论状态，用于生成时去重。
+ * 所有子索引都基于 ConcurrentSkipListMap，读操作无需加锁。
+ */
+class TaskIndex {
+
+    private final ConcurrentSkipListMap<TaskKey, ScheduledBuildTask> pending = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<TaskKey, ScheduledBuildTask>> tasksByJob = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<TaskKey, ScheduledBuildTask>> pendingByJob = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<TaskKey, ScheduledBuildTask>> pendingByRule = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ScheduledBuildTask> byOccurrence = new ConcurrentHashMap<>();
+
+    /**
+     * 用已有任务构建索引
+     */
+    static TaskIndex of(Collection<ScheduledBuildTask> tasks) {
+        TaskIndex index = new TaskIndex();
+        for (ScheduledBuildTask task : tasks) {
+            index.add(task);
+        }
+        return index;
+    }
+
+    void add(ScheduledBuildTask task) {
+        TaskKey key = TaskKey.of(task);
+        addTo(tasksByJob, task.getJobName(), key, task);
+        String occurrence = occurrenceKey(task);
+        if (occurrence != null) {
+            byOccurrence.put(occurrence, task);
+        }
+        if (task.getState() == ScheduledBuildTask.State.PENDING) {
+            pending.put(key, task);
+            addTo(pendingByJob, task.getJobName(), key, task);
+            if (task.getRecurringRuleId() != null) {
+                addTo(pendingByRule, task.getRecurringRuleId(), key, task);
+            }
+        }
+    }
+
+    void remove(ScheduledBuildTask task) {
+        markDone(task);
+        releaseOccurrence(task);
+        removeFrom(tasksByJob, task.getJobName(), TaskKey.of(task));
+    }
+
+    /**
+     * 任务不再占用规则的这次执行时间，之后可以为该时间重新生成任务
+     */
+    void releaseOccurrence(ScheduledBuildTask task) {
+        String occurrence = occurrenceKey(task);
+        if (occurrence != null) {
+            byOccurrence.remove(occurrence, task);
+        }
+    }
+
+    /**
+     * 规则在指定执行时间生成的任务（任意状态），没有时返回 null
+     */
+    ScheduledBuildTask occurrence(String ruleId, long occurrenceTime) {
+        return byOccurrence.get(ruleId + "@" + occurrenceTime);
+    }
+
+    private static String occurrenceKey(ScheduledBuildTask task) {
+        Long time = task.getOccurrenceTime();
+        return task.getRecurringRuleId() != null && time != null ? task.getRecurringRuleId() + "@" + time : null;
+    }
+
+    /**
+     * 任务被取消或已执行后，从待执行索引中移除
+     */
+    void markDone(ScheduledBuildTask task) {
+        TaskKey key = TaskKey.of(task);
+        pending.remove(key);
+        removeFrom(pendingByJob, task.getJobName(), key);
+        if (task.getRecurringRuleId() != null) {
+            removeFrom(pendingByRule, task.getRecurringRuleId(), key);
+        }
+    }
+
+    /**
+     * 预约时间晚于 now 的所有待执行任务，按时间排序
+     */
+    List<ScheduledBuildTask> pendingAfter(long now) {
+        return new ArrayList<>(after(pending, now).values());
+    }
+
+    /**
+     * 预约时间不晚于 now、仍处于 PENDING 状态的任务（错过了触发时间），按时间排序
+     */
+    List<ScheduledBuildTask> pendingUpTo(long now) {
+        return new ArrayList<>(pending.headMap(TaskKey.lowest(now + 1), false).values());
+    }
+
+    /**
+     * 预约时间在 (from, to] 范围内的待执行任务，按时间排序
+     */
+    List<ScheduledBuildTask> pendingBetween(long from, long to) {
+        if (to == Long.MAX_VALUE) {
+            return pendingAfter(from);
+        }
+        return new ArrayList<>(pending.subMap(TaskKey.lowest(from + 1), true, TaskKey.lowest(to + 1), false).values());
+    }
+
+    /**
+     * 有预约记录的任务名称中，等于 fullName 或位于其下（文件夹）的名称
+     */
+    List<String> jobNamesUnder(String fullName) {
+        String prefix = fullName + "/";
+        List<String> names = new ArrayList<>();
+        for (String name : tasksByJob.keySet()) {
+            if (name.equals(fullName) || name.startsWith(prefix)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 指定任务的所有预约（包括历史记录），按时间排序
+     */
+    List<ScheduledBuildTask> tasksForJob(String jobName) {
+        NavigableMap<TaskKey, ScheduledBuildTask> sub = tasksByJob.get(jobName);
+        return sub != null ? new ArrayList<>(sub.values()) : Collections.emptyList();
+    }
+
+    /**
+     * 指定任务仍处于 PENDING 状态的预约（包括已过预约时间、等待补触发的），按时间排序
+     */
+    List<ScheduledBuildTask> pendingForJob(String jobName) {
+        NavigableMap<TaskKey, ScheduledBuildTask> sub = pendingByJob.get(jobName);
+        return sub != null ? new ArrayList<>(sub.values()) : Collections.emptyList();
+    }
+
+    /**
+     * 指定规则仍处于 PENDING 状态的任务（包括已过预约时间、等待补触发的），按时间排序
+     */
+    List<ScheduledBuildTask> pendingForRule(String ruleId) {
+        NavigableMap<TaskKey, ScheduledBuildTask> sub = pendingByRule.get(ruleId);
+        return sub != null ? new ArrayList<>(sub.values()) : Collections.emptyList();
+    }
+
+    private static NavigableMap<TaskKey, ScheduledBuildTask> after(
+            NavigableMap<TaskKey, ScheduledBuildTask> map, long now) {
+        return map.tailMap(TaskKey.lowest(now + 1), true);
+    }
+
+    private static void addTo(ConcurrentMap<String, ConcurrentSkipListMap<TaskKey, ScheduledBuildTask>> map,
+                              String name, TaskKey key, ScheduledBuildTask task) {
+        map.compute(name, (k, sub) -> {
+            if (sub == null) {
+                sub = new ConcurrentSkipListMap<>();
+            }
+            sub.put(key, task);
+            return sub;
+        });
+    }
+
+    private static void removeFrom(ConcurrentMap<String, ConcurrentSkipListMap<TaskKey, ScheduledBuildTask>> map,
+                                   String name, TaskKey key) {
+        map.computeIfPresent(name, (k, sub) -> {
+            sub.remove(key);
+            return sub.isEmpty() ? null : sub;
+        });
+    }
+
+    /**
+     * 索引键：按预约时间排序，时间相同时按任务ID区分
+     */
+    static final class TaskKey implements Comparable<TaskKey> {
+        private final long time;
+        private final String id;
+
+        private TaskKey(long time, String id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        static TaskKey of(ScheduledBuildTask task) {
+            return new TaskKey(task.getScheduledTime(), task.getId());
+        }
+
+        /**
+         * 指定时间点上排序最靠前的键，用于范围查询的边界
+         */
+        static TaskKey lowest(long time) {
+            return new TaskKey(time, "");
+        }
+
+        @Override
+        public int compareTo(TaskKey o) {
+            int c = Long.compare(time, o.time);
+            return c != 0 ? c : id.compareTo(o.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TaskKey && compareTo((TaskKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(time) * 31 + id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 分层时间轮任务分发器
+ * 秒级（1分钟）、分钟级（1小时）、小时级（1天）三层时间轮，超过一天的任务放入溢出链表。
+ * 插入和取消都是 O(1)；单个 tick 线程每秒推进一次，把同一 tick 到期的任务作为一批交给工作线程池。
+ */
+class TimingWheelDispatcher implements TaskDispatcher {
+    private static final Logger LOGGER = Logger.getLogger(TimingWheelDispatcher.class.getName());
+
+    static final long TICK_MILLIS = 1000;
+
+    private static final int SECOND_SLOTS = 60;
+    private static final int MINUTE_SLOTS = 60;
+    private static final int HOUR_SLOTS = 24;
+
+    private static final long TICKS_PER_MINUTE = SECOND_SLOTS;
+    private static final long TICKS_PER_HOUR = TICKS_PER_MINUTE * MINUTE_SLOTS;
+    private static final long TICKS_PER_DAY = TICKS_PER_HOUR * HOUR_SLOTS;
+
+    private static final int WORKER_THREADS = SystemProperties.getInteger(
+            ScheduledBuildManager.class.getName() + ".dispatcherThreads", 5);
+
+    private final Handler handler;
+    private final Bucket[] secondWheel = newBuckets(SECOND_SLOTS);
+    private final Bucket[] minuteWheel = newBuckets(MINUTE_SLOTS);
+    private final Bucket[] hourWheel = newBuckets(HOUR_SLOTS);
+    private final Bucket overflow = new Bucket();
+    private final Map<String, Node> nodes = new HashMap<>();
+
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService workers;
+
+    // 最后一个已处理的 tick，受 this 锁保护
+    private long currentTick;
+
+    // shutdown() 之后不再接受新任务，未分发的任务保持待执行状态，重启后由恢复流程处理
+    private volatile boolean shutdown;
+
+    TimingWheelDispatcher(Handler handler) {
+        this.handler = handler;
+        this.currentTick = System.currentTimeMillis() / TICK_MILLIS;
+        this.workers = Executors.newFixedThreadPool(WORKER_THREADS,
+                new NamingThreadFactory(new DaemonThreadFactory(), "ScheduledBuild.worker"));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(
+                new NamingThreadFactory(new DaemonThreadFactory(), "ScheduledBuild.wheel"));
+        // 对齐到整秒边界，减少触发延迟
+        long initialDelay = TICK_MILLIS - System.currentTimeMillis() % TICK_MILLIS;
+        ticker.scheduleAtFixedRate(this::tick, initialDelay, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void schedule(ScheduledBuildTask task) {
+        long deadlineTick = (task.getFireTime() + TICK_MILLIS - 1) / TICK_MILLIS;
+        List<ScheduledBuildTask> due = new ArrayList<>(1);
+        synchronized (this) {
+            Node old = nodes.remove(task.getId());
+            if (old != null) {
+                old.unlink();
+            }
+            place(new Node(task, deadlineTick), due);
+        }
+        submit(due);
+    }
+
+    /**
+     * 批量安排定时，整批只获取一次时间轮的锁
+     */
+    @Override
+    public void scheduleAll(Collection<ScheduledBuildTask> tasks) {
+        List<ScheduledBuildTask> due = new ArrayList<>();
+        synchronized (this) {
+            for (ScheduledBuildTask task : tasks) {
+                Node old = nodes.remove(task.getId());
+                if (old != null) {
+                    old.unlink();
+                }
+                place(new Node(task, (task.getFireTime() + TICK_MILLIS - 1) / TICK_MILLIS), due);
+            }
+        }
+        submit(due);
+    }
+
+    /**
+     * 取消任务的定时，O(1)
+     */
+    @Override
+    public boolean cancel(String taskId) {
+        synchronized (this) {
+            Node node = nodes.remove(taskId);
+            if (node == null) {
+                return false;
+            }
+            node.unlink();
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized int getActiveTimerCount() {
+        return nodes.size();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        ticker.shutdownNow();
+        workers.shutdownNow();
+        synchronized (this) {
+            nodes.clear();
+        }
+    }
+
+    /**
+     * 推进时间轮到当前时间，期间到期的任务合并为一批
+     */
+    private void tick() {
+        try {
+            long targetTick = System.currentTimeMillis() / TICK_MILLIS;
+            List<ScheduledBuildTask> due = new ArrayList<>();
+            synchronized (this) {
+                while (currentTick < targetTick) {
+                    currentTick++;
+                    if (currentTick % TICKS_PER_DAY == 0) {
+                        cascade(overflow, due);
+                    }
+                    if (currentTick % TICKS_PER_HOUR == 0) {
+                        cascade(hourWheel[(int) ((currentTick / TICKS_PER_HOUR) % HOUR_SLOTS)], due);
+                    }
+                    if (currentTick % TICKS_PER_MINUTE == 0) {
+                        cascade(minuteWheel[(int) ((currentTick / TICKS_PER_MINUTE) % MINUTE_SLOTS)], due);
+                    }
+                    expire(secondWheel[(int) (currentTick % SECOND_SLOTS)], due);
+                }
+            }
+            submit(due);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "时间轮推进失败", e);
+        }
+    }
+
+    /**
+     * 按距离到期的 tick 数放入对应层级，已到期的直接加入 due
+     */
+    private void place(Node node, List<ScheduledBuildTask> due) {
+        long remaining = node.deadlineTick - currentTick;
+        if (remaining <= 0) {
+            nodes.remove(node.task.getId());
+            due.add(node.task);
+            return;
+        }
+
+        Bucket bucket;
+        if (remaining < TICKS_PER_MINUTE) {
+            bucket = secondWheel[(int) (node.deadlineTick % SECOND_SLOTS)];
+        } else if (remaining < TICKS_PER_HOUR) {
+            bucket = minuteWheel[(int) ((node.deadlineTick / TICKS_PER_MINUTE) % MINUTE_SLOTS)];
+        } else if (remaining < TICKS_PER_DAY) {
+            bucket = hourWheel[(int) ((node.deadlineTick / TICKS_PER_HOUR) % HOUR_SLOTS)];
+        } else {
+            bucket = overflow;
+        }
+        bucket.append(node);
+        nodes.put(node.task.getId(), node);
+    }
+
+    /**
+     * 把上层槽位中的任务重新分配到下层
+     */
+    private void cascade(Bucket bucket, List<ScheduledBuildTask> due) {
+        Node node = bucket.takeAll();
+        while (node != null) {
+            Node next = node.next;
+            node.next = null;
+            node.prev = null;
+            place(node, due);
+            node = next;
+        }
+    }
+
+    private void expire(Bucket bucket, List<ScheduledBuildTask> due) {
+        Node node = bucket.takeAll();
+        while (node != null) {
+            Node next = node.next;
+            node.next = null;
+            node.prev = null;
+            nodes.remove(node.task.getId());
+            due.add(node.task);
+            node = next;
+        }
+    }
+
+    private void submit(List<ScheduledBuildTask> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        if (shutdown) {
+            LOGGER.fine(String.format("分发器已关闭，%d 个到期任务保持待执行", due.size()));
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    handler.dispatch(due);
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, String.format("分发 %d 个到期任务失败", due.size()), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 与 shutdown() 并发时线程池可能已经终止
+            LOGGER.fine(String.format("分发器已关闭，%d 个到期任务保持待执行", due.size()));
+        }
+    }
+
+    private static Bucket[] newBuckets(int size) {
+        Bucket[] buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+
+    /**
+     * 时间轮槽位：双向链表，支持 O(1) 追加和摘除
+     */
+    private static final class Bucket {
+        private Node head;
+
+        void append(Node node) {
+            node.bucket = this;
+            node.prev = null;
+            node.next = head;
+            if (head != null) {
+                head.prev = node;
+            }
+            head = node;
+        }
+
+        Node takeAll() {
+            Node first = head;
+            head = null;
+            for (Node n = first; n != null; n = n.next) {
+                n.bucket = null;
+            }
+            return first;
+        }
+    }
+
+    private static final class Node {
+        final ScheduledBuildTask task;
+        final long deadlineTick;
+        Bucket bucket;
+        Node prev;
+        Node next;
+
+        Node(ScheduledBuildTask task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        void unlink() {
+            if (bucket == null) {
+                return;
+            }
+            if (prev != null) {
+                prev.next = next;
+            } else {
+                bucket.head = next;
+            }
+            if (next != null) {
+                next.prev = prev;
+            }
+            prev = null;
+            next = null;
+            bucket = null;
+        }
+    }
+}
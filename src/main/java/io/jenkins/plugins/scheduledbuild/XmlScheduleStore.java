@@ -0,0 +1,73 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import jenkins.util.SystemProperties;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 默认存储：通过 GlobalConfiguration.save() 整体写入全局配置文件，并同时写一份二进制快照加快启动
+ * 变更由 {@link PersistenceWriter} 合并，每个时间间隔内最多写一次
+ */
+class XmlScheduleStore implements ScheduleStore {
+    private static final Logger LOGGER = Logger.getLogger(XmlScheduleStore.class.getName());
+
+    private static final long SAVE_INTERVAL_MILLIS = SystemProperties.getLong(
+            ScheduledBuildManager.class.getName() + ".saveIntervalMillis", 1000L);
+
+    private final PersistenceWriter writer;
+
+    XmlScheduleStore(ScheduledBuildManager manager) {
+        this.writer = new PersistenceWriter("xml", SAVE_INTERVAL_MILLIS, () -> {
+            manager.save();
+            try {
+                // 快照比 XML 新时启动直接读取快照；写入失败则保留旧快照，启动时会因其较旧而回退到 XML
+                manager.writeSnapshot();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "写入预约快照失败", e);
+            }
+        });
+    }
+
+    @Override
+    public void recover(Map<String, ScheduledBuildTask> tasks, Map<String, RecurringScheduleRule> rules) {
+        // 全局配置文件本身就是完整状态，无需补全
+    }
+
+    @Override
+    public void taskChanged(ScheduledBuildTask task) {
+        writer.markDirty();
+    }
+
+    @Override
+    public void taskRemoved(ScheduledBuildTask task) {
+        writer.markDirty();
+    }
+
+    @Override
+    public void ruleChanged(RecurringScheduleRule rule) {
+        writer.markDirty();
+    }
+
+    @Override
+    public void ruleRemoved(RecurringScheduleRule rule) {
+        writer.markDirty();
+    }
+
+    @Override
+    public PersistenceWriter writer() {
+        return writer;
+    }
+
+    @Override
+    public void flush() {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+}
@@ -0,0 +1,35 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行本包中的 JMH 基准测试
+ * 类名不符合 surefire 的默认匹配规则，只在显式指定时运行：
+ * <pre>
+ * mvn test -Dtest=BenchmarkRunner [-Dbenchmark.include=StripedLocks] [-Dbenchmark.threads=1,2,4,8,16]
+ * </pre>
+ * 每个线程数各运行一轮，用于对比吞吐量随线程数的变化；结果写入 target/jmh-report-线程数.json。
+ * 始终附带 GC 分析（相当于命令行的 -prof gc），报告中的 gc.alloc.rate.norm 即每次操作分配的字节数。
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        String include = System.getProperty("benchmark.include", "");
+        for (String threads : System.getProperty("benchmark.threads", "1").split(",")) {
+            int count = Integer.parseInt(threads.trim());
+            new Runner(new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackage().getName() + "\\..*" + include + ".*Benchmark\\.")
+                    .threads(count)
+                    .addProfiler(GCProfiler.class)
+                    .shouldFailOnError(true)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-report-" + count + ".json")
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每天/每周/每月调度计算下一次执行时间的耗时和分配
+ * BenchmarkRunner 附带 GC 分析，gc.alloc.rate.norm 应接近 0 字节/次。
+ * 起点在一年内按分钟推进，覆盖夏令时跳变前后。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompiledScheduleBenchmark {
+
+    private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    @Param({"UTC", "America/New_York"})
+    public String zone;
+
+    private CompiledSchedule daily;
+    private CompiledSchedule weekly;
+    private CompiledSchedule monthly;
+    private long start;
+    private long offset;
+
+    @Setup
+    public void setup() {
+        ZoneId zoneId = ZoneId.of(zone);
+        daily = CompiledSchedule.daily("02:30", zoneId);
+        weekly = CompiledSchedule.weekly(Set.of(1, 3, 5), "09:15", zoneId);
+        monthly = CompiledSchedule.monthly(Set.of(1, 15, 31), "23:59", zoneId);
+        start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, zoneId).toInstant().toEpochMilli();
+    }
+
+    private long from() {
+        offset = (offset + TimeUnit.MINUTES.toMillis(7)) % YEAR_MILLIS;
+        return start + offset;
+    }
+
+    @Benchmark
+    public long daily() {
+        return daily.next(from());
+    }
+
+    @Benchmark
+    public long weekly() {
+        return weekly.next(from());
+    }
+
+    @Benchmark
+    public long monthly() {
+        return monthly.next(from());
+    }
+}
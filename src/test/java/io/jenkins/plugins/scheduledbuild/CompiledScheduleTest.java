@@ -0,0 +1,110 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompiledScheduleTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static final ZoneId[] ZONES = {
+            ZoneOffset.UTC, ZoneOffset.ofHoursMinutes(5, 45), NEW_YORK, ZoneId.of("Europe/London"),
+            ZoneId.of("Australia/Lord_Howe"), ZoneId.of("America/Santiago"), ZoneId.of("Asia/Shanghai")};
+
+    @Test
+    public void matchesJavaTimeForRandomSchedules() {
+        Random random = new Random(7);
+        long start = LocalDateTime.of(1960, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+        long end = LocalDateTime.of(2120, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+        for (int i = 0; i < 20000; i++) {
+            ZoneId zone = ZONES[random.nextInt(ZONES.length)];
+            // 一半的执行时间落在 0-3 点，覆盖夏令时跳变
+            int hour = random.nextBoolean() ? random.nextInt(4) : random.nextInt(24);
+            String time = String.format("%02d:%02d", hour, random.nextInt(60));
+            Set<Integer> weekDays = randomSet(random, 1, 7);
+            Set<Integer> monthDays = randomSet(random, 1, 31);
+            long from = start + (long) (random.nextDouble() * (end - start));
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals("daily " + time + " " + zone + " " + Instant.ofEpochMilli(from),
+                            reference(null, null, time, zone, from),
+                            CompiledSchedule.daily(time, zone).next(from));
+                    break;
+                case 1:
+                    assertEquals("weekly " + weekDays + " " + time + " " + zone + " " + Instant.ofEpochMilli(from),
+                            reference(weekDays, null, time, zone, from),
+                            CompiledSchedule.weekly(weekDays, time, zone).next(from));
+                    break;
+                default:
+                    assertEquals("monthly " + monthDays + " " + time + " " + zone + " " + Instant.ofEpochMilli(from),
+                            reference(null, monthDays, time, zone, from),
+                            CompiledSchedule.monthly(monthDays, time, zone).next(from));
+            }
+        }
+    }
+
+    @Test
+    public void daylightSavingTransitions() {
+        // 2:30 在 2024-03-10 不存在，顺延到 3:30
+        long springForward = ZonedDateTime.of(2024, 3, 10, 0, 0, 0, 0, NEW_YORK).toInstant().toEpochMilli();
+        assertEquals(ZonedDateTime.of(2024, 3, 10, 3, 30, 0, 0, NEW_YORK).toInstant().toEpochMilli(),
+                CompiledSchedule.daily("02:30", NEW_YORK).next(springForward));
+        // 1:30 在 2024-11-03 出现两次，取较早的一次
+        long fallBack = ZonedDateTime.of(2024, 11, 3, 0, 0, 0, 0, NEW_YORK).toInstant().toEpochMilli();
+        assertEquals(ZonedDateTime.of(LocalDateTime.of(2024, 11, 3, 1, 30), NEW_YORK)
+                        .withEarlierOffsetAtOverlap().toInstant().toEpochMilli(),
+                CompiledSchedule.daily("01:30", NEW_YORK).next(fallBack));
+    }
+
+    @Test
+    public void monthlySkipsMonthsWithoutTheDay() {
+        long from = ZonedDateTime.of(2024, 1, 31, 12, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        assertEquals(ZonedDateTime.of(2024, 3, 31, 9, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli(),
+                CompiledSchedule.monthly(Set.of(31), "09:00", ZoneOffset.UTC).next(from));
+        assertEquals(ZonedDateTime.of(2024, 2, 29, 9, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli(),
+                CompiledSchedule.monthly(Set.of(29, 30), "09:00", ZoneOffset.UTC).next(from));
+    }
+
+    /**
+     * 直接用 java.time 逐日查找
+     */
+    private static long reference(Set<Integer> weekDays, Set<Integer> monthDays, String time, ZoneId zone, long from) {
+        int minuteOfDay = CompiledSchedule.parseMinuteOfDay(time);
+        LocalDate date = Instant.ofEpochMilli(from).atZone(zone).toLocalDate();
+        for (int i = 0; i <= 400; i++, date = date.plusDays(1)) {
+            if (weekDays != null && !weekDays.contains(date.getDayOfWeek().getValue())) {
+                continue;
+            }
+            if (monthDays != null && !monthDays.contains(date.getDayOfMonth())) {
+                continue;
+            }
+            long next = ZonedDateTime.ofLocal(date.atStartOfDay().plusMinutes(minuteOfDay), zone, null)
+                    .toInstant().toEpochMilli();
+            if (next > from) {
+                return next;
+            }
+        }
+        return ScheduleEvaluator.NONE;
+    }
+
+    private static Set<Integer> randomSet(Random random, int min, int max) {
+        Set<Integer> values = new HashSet<>();
+        int count = 1 + random.nextInt(3);
+        while (values.size() < count) {
+            values.add(min + random.nextInt(max - min + 1));
+        }
+        return values;
+    }
+}
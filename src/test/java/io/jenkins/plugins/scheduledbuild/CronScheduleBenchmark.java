@@ -0,0 +1,63 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10 万条 Cron 规则计算下一次执行时间的吞吐量
+ * 规则混合了常见写法和较稀疏的表达式（按月、限定星期、2 月 29 日），各自使用不同的 H 种子和时区。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CronScheduleBenchmark {
+
+    private static final int RULES = 100_000;
+
+    private static final String[] EXPRESSIONS = {
+            "H H * * *", "H/15 * * * *", "H H(8-18) * * 1-5", "0 2 * * *", "*/5 9-17 * * MON-FRI",
+            "@weekly", "@monthly", "H H 1,15 * *", "30 4 * * 0", "0 0 29 2 *", "H H * * 7", "0 12 13 * 5"};
+
+    private static final ZoneId[] ZONES = {
+            ZoneId.of("UTC"), ZoneId.of("America/New_York"), ZoneId.of("Europe/Berlin"), ZoneId.of("Asia/Shanghai")};
+
+    private CronSchedule[] schedules;
+    private long from;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        schedules = new CronSchedule[RULES];
+        for (int i = 0; i < RULES; i++) {
+            schedules[i] = CronSchedule.parse(EXPRESSIONS[random.nextInt(EXPRESSIONS.length)],
+                    "rule-" + i, ZONES[random.nextInt(ZONES.length)]);
+        }
+        from = ZonedDateTime.of(2024, 3, 9, 23, 0, 0, 0, ZoneId.of("UTC")).toInstant().toEpochMilli();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RULES)
+    public void nextForAllRules(Blackhole blackhole) {
+        for (CronSchedule schedule : schedules) {
+            blackhole.consume(schedule.next(from));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CronScheduleTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    // 逐分钟对照时最多向后扫描的分钟数
+    private static final int SCAN_MINUTES = (int) TimeUnit.DAYS.toMinutes(62);
+
+    private static final ZoneId[] ZONES = {
+            ZoneOffset.UTC, NEW_YORK, ZoneId.of("Europe/London"), ZoneId.of("Asia/Shanghai"),
+            ZoneId.of("Australia/Lord_Howe"), ZoneId.of("Asia/Kolkata")};
+
+    @Test
+    public void nextMatchesMinuteScanForRandomExpressions() {
+        Random random = new Random(20240310L);
+        int checked = 0;
+        while (checked < 300) {
+            String expression = randomExpression(random);
+            ZoneId zone = ZONES[random.nextInt(ZONES.length)];
+            CronSchedule schedule;
+            try {
+                schedule = CronSchedule.parse(expression, "seed-" + random.nextInt(), zone);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            // 起点覆盖 2024 年各时区的夏令时切换
+            long from = ZonedDateTime.of(2024, 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60), 0, zone).toInstant().toEpochMilli();
+            long expected = scan(schedule, zone, from);
+            long actual = schedule.next(from);
+            if (expected == ScheduleEvaluator.NONE) {
+                assertTrue(expression + " 在扫描范围之外: " + actual,
+                        actual == ScheduleEvaluator.NONE || actual > from + TimeUnit.MINUTES.toMillis(SCAN_MINUTES));
+            } else {
+                assertEquals(expression + " @ " + zone + " from " + Instant.ofEpochMilli(from), expected, actual);
+            }
+            checked++;
+        }
+    }
+
+    @Test
+    public void springForwardRunsAfterTheGap() {
+        CronSchedule schedule = CronSchedule.parse("30 2 * * *", null, NEW_YORK);
+        long from = at(2024, 3, 10, 0, 0, NEW_YORK);
+        // 02:30 不存在，顺延到跳变之后
+        assertEquals(ZonedDateTime.of(2024, 3, 10, 3, 30, 0, 0, NEW_YORK).toInstant().toEpochMilli(),
+                schedule.next(from));
+        assertEquals(at(2024, 3, 11, 2, 30, NEW_YORK), schedule.next(schedule.next(from)));
+    }
+
+    @Test
+    public void fallBackRunsRepeatedTimeOnce() {
+        CronSchedule schedule = CronSchedule.parse("30 1 * * *", null, NEW_YORK);
+        long first = schedule.next(at(2024, 11, 3, 0, 0, NEW_YORK));
+        assertEquals(ZonedDateTime.of(LocalDateTime.of(2024, 11, 3, 1, 30), NEW_YORK)
+                .withEarlierOffsetAtOverlap().toInstant().toEpochMilli(), first);
+        assertEquals(at(2024, 11, 4, 1, 30, NEW_YORK), schedule.next(first));
+    }
+
+    @Test
+    public void hashedFieldsAreStableAndWithinRange() {
+        for (int i = 0; i < 500; i++) {
+            String seed = "rule-" + i;
+            CronSchedule schedule = CronSchedule.parse("H H(8-10) * * *", seed, ZoneOffset.UTC);
+            long next = schedule.next(0);
+            assertEquals(next, CronSchedule.parse("H H(8-10) * * *", seed, ZoneOffset.UTC).next(0));
+            int hour = Instant.ofEpochMilli(next).atZone(ZoneOffset.UTC).getHour();
+            assertTrue("H(8-10) 取值 " + hour, hour >= 8 && hour <= 10);
+
+            // H/15 每小时 4 次，间隔 15 分钟，起点小于 15
+            Set<Integer> minutes = minutesWithinHour(CronSchedule.parse("H/15 * * * *", seed, ZoneOffset.UTC));
+            assertEquals(4, minutes.size());
+            int start = minutes.stream().mapToInt(Integer::intValue).min().getAsInt();
+            assertTrue(start < 15);
+            for (int k = 0; k < 4; k++) {
+                assertTrue(minutes.contains(start + k * 15));
+            }
+
+            // H(20-40)/10 的起点在 20-29 之间
+            Set<Integer> ranged = minutesWithinHour(CronSchedule.parse("H(20-40)/10 * * * *", seed, ZoneOffset.UTC));
+            int rangedStart = ranged.stream().mapToInt(Integer::intValue).min().getAsInt();
+            assertTrue("H(20-40)/10 起点 " + rangedStart, rangedStart >= 20 && rangedStart < 30);
+            for (int minute : ranged) {
+                assertTrue(minute <= 40 && (minute - rangedStart) % 10 == 0);
+            }
+
+            // 日字段的 H 只取 1-28
+            long monthly = CronSchedule.parse("@monthly", seed, ZoneOffset.UTC).next(0);
+            assertTrue(Instant.ofEpochMilli(monthly).atZone(ZoneOffset.UTC).getDayOfMonth() <= 28);
+        }
+    }
+
+    @Test
+    public void stepFromStar() {
+        assertEquals(Set.of(0, 15, 30, 45), minutesWithinHour(CronSchedule.parse("*/15 * * * *", null, ZoneOffset.UTC)));
+        assertEquals(Set.of(5, 25, 45), minutesWithinHour(CronSchedule.parse("5/20 * * * *", null, ZoneOffset.UTC)));
+        // */2 在日字段中不算限制：与星期同时出现时两者都要满足
+        long next = CronSchedule.parse("0 0 */2 * 1", null, ZoneOffset.UTC).next(at(2024, 1, 1, 0, 0, ZoneOffset.UTC));
+        ZonedDateTime time = Instant.ofEpochMilli(next).atZone(ZoneOffset.UTC);
+        assertEquals(1, time.getDayOfWeek().getValue());
+        assertEquals(1, time.getDayOfMonth() % 2);
+    }
+
+    @Test
+    public void sundayIsZeroOrSeven() {
+        long from = at(2024, 5, 1, 0, 0, ZoneOffset.UTC);
+        long sunday = at(2024, 5, 5, 0, 0, ZoneOffset.UTC);
+        assertEquals(sunday, CronSchedule.parse("0 0 * * 0", null, ZoneOffset.UTC).next(from));
+        assertEquals(sunday, CronSchedule.parse("0 0 * * 7", null, ZoneOffset.UTC).next(from));
+        assertEquals(sunday, CronSchedule.parse("0 0 * * SUN", null, ZoneOffset.UTC).next(from));
+        // 5-7 为周五到周日
+        assertEquals(at(2024, 5, 3, 0, 0, ZoneOffset.UTC),
+                CronSchedule.parse("0 0 * * 5-7", null, ZoneOffset.UTC).next(from));
+        assertEquals(sunday, CronSchedule.parse("0 0 * * 6-7", null, ZoneOffset.UTC).next(at(2024, 5, 4, 0, 0, ZoneOffset.UTC)));
+    }
+
+    @Test
+    public void rejectsDatesMissingFromEverySelectedMonth() {
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("0 0 30 2 *", null, ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("0 0 31 4 *", null, ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("0 0 31 2,4,6,9,11 *", null, ZoneOffset.UTC));
+        // 星期同时被限制时满足星期即可
+        CronSchedule.parse("0 0 30 2 1", null, ZoneOffset.UTC);
+        CronSchedule.parse("0 0 31 4,5 *", null, ZoneOffset.UTC);
+        // 2 月 29 日只在闰年执行
+        assertEquals(at(2028, 2, 29, 0, 0, ZoneOffset.UTC),
+                CronSchedule.parse("0 0 29 2 *", null, ZoneOffset.UTC).next(at(2024, 3, 1, 0, 0, ZoneOffset.UTC)));
+    }
+
+    /**
+     * 逐分钟扫描找到的下一次执行时间：本地时间匹配且为较早的偏移，或由夏令时跳过的匹配时间顺延而来
+     */
+    private static long scan(CronSchedule schedule, ZoneId zone, long from) {
+        ZoneRules rules = zone.getRules();
+        Instant minute = Instant.ofEpochMilli(from).truncatedTo(ChronoUnit.MINUTES);
+        for (int i = 0; i < SCAN_MINUTES; i++) {
+            minute = minute.plus(1, ChronoUnit.MINUTES);
+            LocalDateTime local = LocalDateTime.ofInstant(minute, zone);
+            if (schedule.matches(local) && rules.getOffset(local).equals(rules.getOffset(minute))) {
+                return minute.toEpochMilli();
+            }
+            ZoneOffsetTransition transition = rules.previousTransition(minute.plusNanos(1));
+            if (transition != null && transition.isGap()) {
+                LocalDateTime skipped = local.minus(transition.getDuration());
+                if (rules.getValidOffsets(skipped).isEmpty() && schedule.matches(skipped)) {
+                    return minute.toEpochMilli();
+                }
+            }
+        }
+        return ScheduleEvaluator.NONE;
+    }
+
+    private static Set<Integer> minutesWithinHour(CronSchedule schedule) {
+        Set<Integer> minutes = new HashSet<>();
+        long hour = at(2024, 1, 1, 0, 0, ZoneOffset.UTC);
+        long time = schedule.next(hour - 1);
+        while (time < hour + TimeUnit.HOURS.toMillis(1)) {
+            minutes.add(Instant.ofEpochMilli(time).atZone(ZoneOffset.UTC).getMinute());
+            time = schedule.next(time);
+        }
+        return minutes;
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute, ZoneId zone) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone).toInstant().toEpochMilli();
+    }
+
+    private static String randomExpression(Random random) {
+        return String.join(" ",
+                randomField(random, 0, 59, 60),
+                randomField(random, 0, 23, 6),
+                randomField(random, 1, 31, 8),
+                random.nextInt(4) == 0 ? randomField(random, 1, 12, 4) : "*",
+                randomField(random, 0, 7, 4));
+    }
+
+    /**
+     * 随机生成单个字段；wildcardWeight 越大越常用 *，使大部分表达式在扫描范围内有执行
+     */
+    private static String randomField(Random random, int min, int max, int wildcardWeight) {
+        int span = max - min + 1;
+        int a = min + random.nextInt(span);
+        int b = a + random.nextInt(max - a + 1);
+        int step = 1 + random.nextInt(Math.max(1, span / 3));
+        switch (random.nextInt(wildcardWeight + 9)) {
+            case 0:
+                return Integer.toString(a);
+            case 1:
+                return a + "-" + b;
+            case 2:
+                return "*/" + step;
+            case 3:
+                return a + "-" + b + "/" + step;
+            case 4:
+                return a + "," + (min + random.nextInt(span));
+            case 5:
+                return "H";
+            case 6:
+                return "H/" + step;
+            case 7:
+                return "H(" + a + "-" + b + ")";
+            case 8:
+                return "H(" + a + "-" + b + ")/" + step;
+            default:
+                return "*";
+        }
+    }
+}
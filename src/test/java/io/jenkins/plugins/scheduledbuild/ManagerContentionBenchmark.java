@@ -0,0 +1,80 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ScheduledBuildManager 增删预约在不同线程数下的吞吐量
+ * 在真实的 Jenkins 实例中运行，使用追加日志存储，预约时间在定时窗口之外，不会触发构建。
+ * 配合 -Dbenchmark.threads=1,2,4,8,16 对比各线程操作不同任务与操作同一任务时的差异。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dio.jenkins.plugins.scheduledbuild.ScheduledBuildManager.storage=journal")
+public class ManagerContentionBenchmark {
+
+    private static final AtomicInteger JOBS = new AtomicInteger();
+
+    @State(Scope.Benchmark)
+    public static class JenkinsState extends JmhBenchmarkState {
+        ScheduledBuildManager manager;
+        long scheduledTime;
+        // 保持引用，避免日志级别随 Logger 被回收而失效
+        private Logger managerLogger;
+
+        @Override
+        public void setup() {
+            // 每次增删都会输出 INFO 日志，测量时关闭
+            managerLogger = Logger.getLogger(ScheduledBuildManager.class.getName());
+            managerLogger.setLevel(Level.WARNING);
+            manager = ScheduledBuildManager.get();
+            scheduledTime = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(30);
+        }
+    }
+
+    /**
+     * 每个线程固定操作一个任务
+     */
+    @State(Scope.Thread)
+    public static class ThreadJob {
+        String jobName;
+
+        @Setup
+        public void setup() {
+            jobName = "folder/job-" + JOBS.getAndIncrement();
+        }
+    }
+
+    @Benchmark
+    public boolean distinctJobs(JenkinsState state, ThreadJob job) {
+        return addAndRemove(state, job.jobName);
+    }
+
+    @Benchmark
+    public boolean sameJob(JenkinsState state) {
+        return addAndRemove(state, "folder/shared");
+    }
+
+    private static boolean addAndRemove(JenkinsState state, String jobName) {
+        ScheduledBuildTask task = state.manager.addScheduledBuild(jobName, state.scheduledTime,
+                Collections.emptyMap(), "benchmark");
+        return state.manager.removeTask(task.getId());
+    }
+}
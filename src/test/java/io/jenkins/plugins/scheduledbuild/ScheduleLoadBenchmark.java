@@ -0,0 +1,161 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.XmlFile;
+import jenkins.model.Jenkins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一批任务和规则分别从二进制快照和 XStream XML 加载的耗时
+ * XML 与 ScheduledBuildManager 的配置文件结构相同（tasks 和 recurringRules 两个字段），
+ * 用 XmlFile 和 Jenkins.XSTREAM2 读取，与启动时的加载路径一致。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleLoadBenchmark {
+
+    @Param({"10000", "100000", "300000"})
+    public int size;
+
+    private File dir;
+    private File snapshotFile;
+    private XmlFile xmlFile;
+
+    /**
+     * 与 ScheduledBuildManager 持久化的字段同名，XML 结构保持一致
+     */
+    static final class Dataset {
+        final Map<String, ScheduledBuildTask> tasks = new ConcurrentHashMap<>();
+        final Map<String, RecurringScheduleRule> recurringRules = new ConcurrentHashMap<>();
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        Dataset dataset = generate(size);
+        dir = Files.createTempDirectory("schedule-load").toFile();
+        snapshotFile = new File(dir, "snapshot.bin");
+        ScheduleSnapshot.write(snapshotFile, dataset.tasks.values(), dataset.recurringRules.values());
+        xmlFile = new XmlFile(Jenkins.XSTREAM2, new File(dir, "schedules.xml"));
+        xmlFile.write(dataset);
+
+        // 两种格式必须加载出相同数量的数据，否则比较没有意义
+        Map<String, ScheduledBuildTask> tasks = new HashMap<>();
+        Map<String, RecurringScheduleRule> rules = new HashMap<>();
+        ScheduleSnapshot.read(snapshotFile, tasks, rules);
+        Dataset xml = (Dataset) xmlFile.read();
+        if (tasks.size() != xml.tasks.size() || rules.size() != xml.recurringRules.size()
+                || tasks.size() != dataset.tasks.size() || rules.size() != dataset.recurringRules.size()) {
+            throw new IllegalStateException(String.format("快照与 XML 数据不一致: %d/%d 任务, %d/%d 规则",
+                    tasks.size(), xml.tasks.size(), rules.size(), xml.recurringRules.size()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public Map<String, ScheduledBuildTask> loadSnapshot() throws IOException {
+        Map<String, ScheduledBuildTask> tasks = new ConcurrentHashMap<>();
+        Map<String, RecurringScheduleRule> rules = new ConcurrentHashMap<>();
+        ScheduleSnapshot.read(snapshotFile, tasks, rules);
+        return tasks;
+    }
+
+    @Benchmark
+    public Object loadXml() throws IOException {
+        return xmlFile.read();
+    }
+
+    /**
+     * 生成接近线上分布的数据：约 1% 为规则，多数任务由规则生成，任务名称在 2000 个任务间重复
+     */
+    private static Dataset generate(int size) {
+        Random random = new Random(size);
+        Dataset dataset = new Dataset();
+        String[] ruleIds = new String[Math.max(1, size / 100)];
+        for (int i = 0; i < ruleIds.length; i++) {
+            String jobName = jobName(random);
+            Map<String, String> parameters = parameters(random);
+            RecurringScheduleRule rule;
+            switch (i % 4) {
+                case 0:
+                    rule = RecurringScheduleRule.createDaily(jobName, "02:30", parameters, "每日构建");
+                    break;
+                case 1:
+                    rule = RecurringScheduleRule.createWeekly(jobName, Set.of(1, 3, 5), "09:15", parameters, "每周构建");
+                    break;
+                case 2:
+                    rule = RecurringScheduleRule.createMonthly(jobName, Set.of(1, 15), "23:00", parameters, "每月构建");
+                    break;
+                default:
+                    rule = RecurringScheduleRule.createCron(jobName, "H H(0-6) * * *", parameters, "夜间构建");
+            }
+            dataset.recurringRules.put(rule.getId(), rule);
+            ruleIds[i] = rule.getId();
+        }
+
+        long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+        for (int i = dataset.recurringRules.size(); i < size; i++) {
+            long time = start + (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(400));
+            String ruleId = random.nextInt(4) == 0 ? null : ruleIds[random.nextInt(ruleIds.length)];
+            ScheduledBuildTask task = ruleId != null
+                    ? new ScheduledBuildTask(jobName(random), time, parameters(random), "周期任务", ruleId)
+                    : new ScheduledBuildTask(jobName(random), time, parameters(random), "手动预约");
+            // 历史数据大部分已结束
+            if (time < System.currentTimeMillis()) {
+                if (random.nextInt(10) == 0) {
+                    task.cancel();
+                } else {
+                    task.transition(ScheduledBuildTask.State.PENDING, ScheduledBuildTask.State.QUEUED);
+                }
+            }
+            dataset.tasks.put(task.getId(), task);
+        }
+        return dataset;
+    }
+
+    private static String jobName(Random random) {
+        return "team-" + random.nextInt(50) + "/service-" + random.nextInt(40);
+    }
+
+    private static Map<String, String> parameters(Random random) {
+        Map<String, String> parameters = new HashMap<>();
+        if (random.nextBoolean()) {
+            parameters.put("BRANCH", "release-" + random.nextInt(20));
+            parameters.put("DEPLOY", Boolean.toString(random.nextBoolean()));
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,170 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.slaves.Cloud;
+import hudson.slaves.NodeProvisioner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduledBuildProvisioningStrategyTest {
+
+    private static final long AHEAD = TimeUnit.MINUTES.toMillis(30);
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ScheduledBuildManager manager;
+    private ScheduledBuildProvisioningStrategy strategy;
+    private RecordingCloud cloud;
+    private Label label;
+    private long fireTime;
+
+    // 模拟 NodeProvisioner 的时钟和各轮之间累计的计划容量
+    private long now;
+    private int planned;
+
+    @Before
+    public void setUp() throws Exception {
+        label = j.jenkins.getLabel("ephemeral");
+        FreeStyleProject project = j.createFreeStyleProject("nightly");
+        project.setAssignedLabel(label);
+        j.createFreeStyleProject("unlabeled");
+
+        cloud = new RecordingCloud("stub", "ephemeral", () -> now);
+        j.jenkins.clouds.add(cloud);
+
+        manager = ScheduledBuildManager.get();
+        strategy = new ScheduledBuildProvisioningStrategy(AHEAD);
+        fireTime = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2);
+        fireTime -= fireTime % TimeUnit.MINUTES.toMillis(1);
+    }
+
+    @Test
+    public void provisionsOnlyOnceWithinTheLead() {
+        for (int i = 0; i < 3; i++) {
+            manager.addScheduledBuild("nightly", fireTime, null, "夜间构建");
+        }
+        // 其他标签的构建不计入
+        manager.addScheduledBuild("unlabeled", fireTime, null, "夜间构建");
+
+        assertEquals(0, round(fireTime - AHEAD - TimeUnit.MINUTES.toMillis(1)));
+        assertTrue(cloud.requests.isEmpty());
+
+        assertEquals(3, round(fireTime - AHEAD + TimeUnit.MINUTES.toMillis(1)));
+        assertEquals(1, cloud.requests.size());
+        Request request = cloud.requests.get(0);
+        assertEquals(3, request.excessWorkload);
+        long lead = fireTime - request.time;
+        assertTrue("提前量 " + lead, lead > 0 && lead <= AHEAD);
+
+        // 已登记的计划节点覆盖了需求，之后各轮不再申请
+        for (int minutes = 28; minutes > 0; minutes -= 4) {
+            assertEquals(0, round(fireTime - TimeUnit.MINUTES.toMillis(minutes)));
+        }
+        assertEquals(1, cloud.requests.size());
+
+        // 新增的预约只申请差额
+        manager.addScheduledBuild("nightly", fireTime, null, "追加构建");
+        assertEquals(1, round(fireTime - TimeUnit.SECONDS.toMillis(30)));
+        assertEquals(2, cloud.requests.size());
+        assertEquals(1, cloud.requests.get(1).excessWorkload);
+    }
+
+    @Test
+    public void subtractsExistingCapacityAndQueue() {
+        for (int i = 0; i < 5; i++) {
+            manager.addScheduledBuild("nightly", fireTime, null, "夜间构建");
+        }
+        now = fireTime - TimeUnit.MINUTES.toMillis(10);
+        // 5 个预约加 1 个排队，扣除 2 个可用执行器和本轮已计划的 1 个
+        assertEquals(3, strategy.provision(now, label, 1, 2, 1, this::record));
+        assertEquals(1, cloud.requests.size());
+        assertEquals(3, cloud.requests.get(0).excessWorkload);
+
+        // 容量足够时不申请
+        now += TimeUnit.MINUTES.toMillis(1);
+        assertEquals(0, strategy.provision(now, label, 0, 5, 0, this::record));
+        assertEquals(1, cloud.requests.size());
+    }
+
+    @Test
+    public void ignoresCloudsThatCannotProvisionTheLabel() {
+        j.jenkins.clouds.remove(cloud);
+        RecordingCloud other = new RecordingCloud("other", "docker", () -> now);
+        j.jenkins.clouds.add(other);
+        manager.addScheduledBuild("nightly", fireTime, null, "夜间构建");
+
+        assertEquals(0, round(fireTime - TimeUnit.MINUTES.toMillis(5)));
+        assertTrue(other.requests.isEmpty());
+    }
+
+    /**
+     * 在 time 执行一轮申请，之前各轮登记的节点计入容量
+     */
+    private int round(long time) {
+        now = time;
+        return strategy.provision(now, label, 0, planned, 0, this::record);
+    }
+
+    private void record(Collection<NodeProvisioner.PlannedNode> nodes) {
+        for (NodeProvisioner.PlannedNode node : nodes) {
+            planned += node.numExecutors;
+        }
+    }
+
+    private static final class Request {
+        final long time;
+        final int excessWorkload;
+
+        Request(long time, int excessWorkload) {
+            this.time = time;
+            this.excessWorkload = excessWorkload;
+        }
+    }
+
+    /**
+     * 记录每次申请的时间和数量，每个节点一个执行器，节点永远不会上线
+     * 修改云列表时 Jenkins 会保存配置，记录和时钟不参与序列化。
+     */
+    private static final class RecordingCloud extends Cloud {
+        final transient List<Request> requests = new ArrayList<>();
+        private final transient LongSupplier clock;
+        private final String labelName;
+
+        RecordingCloud(String name, String labelName, LongSupplier clock) {
+            super(name);
+            this.labelName = labelName;
+            this.clock = clock;
+        }
+
+        @Override
+        public boolean canProvision(CloudState state) {
+            return state.getLabel() != null && labelName.equals(state.getLabel().getName());
+        }
+
+        @Override
+        public Collection<NodeProvisioner.PlannedNode> provision(CloudState state, int excessWorkload) {
+            requests.add(new Request(clock.getAsLong(), excessWorkload));
+            List<NodeProvisioner.PlannedNode> nodes = new ArrayList<>();
+            for (int i = 0; i < excessWorkload; i++) {
+                nodes.add(new NodeProvisioner.PlannedNode(name + "-" + requests.size() + "-" + i,
+                        new CompletableFuture<Node>(), 1));
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.jenkins.plugins.scheduledbuild;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分段锁在不同线程数下的吞吐量
+ * 临界区用固定的 CPU 消耗模拟一次任务变更；配合 -Dbenchmark.threads=1,2,4,8,16 对比：
+ * 各线程操作不同任务时吞吐量应随线程数增长，操作同一任务或使用单个全局锁时不会增长。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripedLocksBenchmark {
+
+    // 临界区内的工作量，与一次任务变更的索引更新和入队相当
+    private static final long WORK_TOKENS = 200;
+
+    private static final AtomicInteger JOBS = new AtomicInteger();
+
+    private final StripedLocks locks = new StripedLocks(ScheduledBuildManager.LOCK_STRIPES);
+    private final Object globalLock = new Object();
+
+    /**
+     * 每个线程固定操作一个任务
+     */
+    @State(Scope.Thread)
+    public static class ThreadJob {
+        String jobName;
+
+        @Setup
+        public void setup() {
+            jobName = "folder/job-" + JOBS.getAndIncrement();
+        }
+    }
+
+    @Benchmark
+    public void distinctJobs(ThreadJob job) {
+        try (StripedLocks.Held ignored = locks.lock(job.jobName)) {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        }
+    }
+
+    @Benchmark
+    public void sameJob() {
+        try (StripedLocks.Held ignored = locks.lock("folder/shared")) {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        }
+    }
+
+    /**
+     * 对照：所有变更共用一把锁
+     */
+    @Benchmark
+    public void globalLock() {
+        synchronized (globalLock) {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        }
+    }
+}